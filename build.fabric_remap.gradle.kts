@@ -78,6 +78,13 @@ repositories {
     }
 }
 
+// Benchmarks for the chat recolor pipeline, see the jmh task
+val jmh by sourceSets.creating {
+    java.srcDir(rootProject.file("src/jmh/java"))
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
 dependencies {
     minecraft("com.mojang:minecraft:${property("deps.minecraft")}")
     mappings(loom.layered {
@@ -93,6 +100,9 @@ dependencies {
     implementation("folk.sisby:kaleido-config:${property("deps.kaleido")}")
     include("folk.sisby:kaleido-config:${property("deps.kaleido")}")
 
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:${property("deps.jmh")}")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:${property("deps.jmh")}")
+
     if (hasProperty("deps.mcqoy")) {
         modLocalRuntime("maven.modrinth:mcqoy:${property("deps.mcqoy")}")
     }
@@ -136,6 +146,41 @@ tasks {
         into(rootProject.layout.buildDirectory.file("libs/${project.property("mod.version")}"))
         dependsOn("build")
     }
+
+    // Pass -Pjmh.include=<regex> to only run some of the benchmarks
+    register<JavaExec>("jmh") {
+        group = "benchmark"
+        description = "Runs the chat recolor benchmarks, reporting throughput and allocation rate."
+        classpath = jmh.runtimeClasspath
+        mainClass = "org.openjdk.jmh.Main"
+        val resultsDir = layout.buildDirectory.dir("jmh")
+        workingDir = resultsDir.get().asFile
+        doFirst { workingDir.mkdirs() }
+        args("-prof", "gc", "-rf", "json", "-rff", "results.json")
+        (findProperty("jmh.include") as String?)?.let { args(it) }
+    }
+
+    // Pass -Pcorpus=<file>, and optionally -Pbaseline=<file> and -Poutput=<file>
+    register<JavaExec>("replayCorpus") {
+        group = "benchmark"
+        description = "Replays a recorded chat corpus, reporting throughput, latency and output differences."
+        classpath = jmh.runtimeClasspath
+        mainClass = "com.macuguita.chatcolors.CorpusReplay"
+        (findProperty("corpus") as String?)?.let { args(rootProject.file(it).absolutePath) }
+        (findProperty("baseline") as String?)?.let { args("--baseline", rootProject.file(it).absolutePath) }
+        (findProperty("output") as String?)?.let { args("--output", rootProject.file(it).absolutePath) }
+    }
+
+    // Fails when a fixture allocates more than its recorded budget, pass -Precord to record new budgets.
+    // Not part of check until the budgets of every version are recorded under src/jmh/allocation-budgets
+    register<JavaExec>("checkAllocations") {
+        group = "verification"
+        description = "Checks the bytes allocated per message by the chat recolor pipeline against the recorded budgets."
+        classpath = jmh.runtimeClasspath
+        mainClass = "com.macuguita.chatcolors.AllocationCheck"
+        args(rootProject.file("src/jmh/allocation-budgets/$minecraft.properties").absolutePath)
+        if (hasProperty("record")) args("--record")
+    }
 }
 
 loom.runs.named("server") {
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import dev.terminalmc.chatnotify.util.text.FormatUtil;
+
+import net.minecraft.network.chat.Component;
+
+/**
+ * Measures how many bytes {@link ChatUtil#applyPlayerColor} and
+ * {@link FormatUtil#convertToStyledLiteral} allocate per message for each of the
+ * {@link ChatFixtures}, and fails when a fixture goes over the budget recorded for it.
+ * <p>
+ * Runs without a game against a stub player list and the fixture settings. Pass
+ * {@code --record} to write the current measurements as the new budgets. A missing budget
+ * file, or a fixture without a budget, fails the check rather than approving whatever the
+ * code allocates.
+ */
+public final class AllocationCheck {
+
+	private AllocationCheck() {}
+
+	private static final int WARMUP = 20_000;
+	private static final int MEASURED = 10_000;
+	// Leaves room for noise between runs and JVMs
+	private static final double TOLERANCE = 1.10;
+	private static final long SLACK_BYTES = 64;
+
+	public static void main(String[] args) throws IOException {
+		Path budgets = null;
+		boolean record = false;
+		for (String arg : args) {
+			if (arg.equals("--record")) {
+				record = true;
+			} else {
+				budgets = Path.of(arg);
+			}
+		}
+		if (budgets == null) {
+			System.err.println("Usage: AllocationCheck <budgets.properties> [--record]");
+			System.exit(1);
+			return;
+		}
+		if (ChatStats.allocatedBytes() == 0) {
+			System.err.println("This JVM doesn't support measuring thread allocations");
+			System.exit(1);
+			return;
+		}
+
+		ChatFixtures.bootstrap();
+		// Measure the path messages take on a server, where the shapes are learned
+		MessageShapes.enterServer("allocation-check");
+		PlayerRegistry.Snapshot players = ChatFixtures.players(100);
+
+		Map<String, Long> measured = new LinkedHashMap<>();
+		for (ChatFixtures.Message message : ChatFixtures.Message.values()) {
+			Component component = ChatFixtures.message(message);
+			measured.put("convert." + message, measure(() -> FormatUtil.convertToStyledLiteral(component)));
+			measured.put("recolor." + message, measure(() -> ChatUtil.applyPlayerColor(component, players, ChatFixtures.SETTINGS)));
+		}
+		for (ChatUtil.Strategy strategy : ChatUtil.Strategy.VALUES) {
+			Component component = ChatFixtures.messageFor(strategy);
+			measured.put("recolor." + strategy, measure(() -> ChatUtil.applyPlayerColor(component, players, ChatFixtures.SETTINGS)));
+		}
+
+		if (record) {
+			write(budgets, measured);
+			measured.forEach((fixture, bytes) -> System.out.printf("%-24s %8d B%n", fixture, bytes));
+			System.out.println("Recorded budgets to " + budgets);
+			return;
+		}
+
+		if (Files.notExists(budgets)) {
+			System.err.println("No budgets recorded at " + budgets + ", record them with --record");
+			System.exit(1);
+			return;
+		}
+		Properties recorded = new Properties();
+		try (Reader reader = Files.newBufferedReader(budgets)) {
+			recorded.load(reader);
+		}
+
+		int failures = 0;
+		for (Map.Entry<String, Long> entry : measured.entrySet()) {
+			String budget = recorded.getProperty(entry.getKey());
+			if (budget == null) {
+				failures++;
+				System.out.printf("%-24s %8d B  no budget%n", entry.getKey(), entry.getValue());
+				continue;
+			}
+			long limit = (long) (Long.parseLong(budget) * TOLERANCE) + SLACK_BYTES;
+			boolean over = entry.getValue() > limit;
+			if (over) failures++;
+			System.out.printf("%-24s %8d B  budget %8s B%s%n", entry.getKey(), entry.getValue(), budget, over ? "  OVER" : "");
+		}
+
+		if (failures > 0) {
+			System.err.printf("%d fixture(s) went over their allocation budget or have none%n", failures);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * @return the average number of bytes allocated per call, once warmed up
+	 */
+	private static long measure(Supplier<Component> task) {
+		Component sink = null;
+		for (int i = 0; i < WARMUP; i++) {
+			sink = task.get();
+		}
+
+		long before = ChatStats.allocatedBytes();
+		for (int i = 0; i < MEASURED; i++) {
+			sink = task.get();
+		}
+		long allocated = ChatStats.allocatedBytes() - before;
+
+		// Keep the result alive so the calls can't be optimized away
+		if (sink == null) throw new IllegalStateException();
+		return allocated / MEASURED;
+	}
+
+	private static void write(Path budgets, Map<String, Long> measured) throws IOException {
+		Files.createDirectories(budgets.toAbsolutePath().getParent());
+		try (Writer writer = Files.newBufferedWriter(budgets)) {
+			writer.write("# Bytes allocated per message, written by AllocationCheck --record\n");
+			for (Map.Entry<String, Long> entry : new TreeMap<>(measured).entrySet()) {
+				writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+			}
+		}
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.RegistryOps;
+
+/**
+ * Replays a corpus recorded by {@link ChatCorpus} through {@link ChatUtil} without a game.
+ * <p>
+ * Reports throughput and latency percentiles, optionally writes the recolored messages,
+ * and compares them against the output of a previous build.
+ */
+public final class CorpusReplay {
+
+	private CorpusReplay() {}
+
+	private static final int MAX_REPORTED_DIFFS = 10;
+
+	public static void main(String[] args) throws IOException {
+		Path corpus = null;
+		Path output = null;
+		Path baseline = null;
+		int warmup = 5;
+		int passes = 10;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--output" -> output = Path.of(args[++i]);
+				case "--baseline" -> baseline = Path.of(args[++i]);
+				case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+				case "--passes" -> passes = Integer.parseInt(args[++i]);
+				default -> corpus = Path.of(args[i]);
+			}
+		}
+		if (corpus == null) {
+			System.err.println("Usage: CorpusReplay <corpus.jsonl> [--output file] [--baseline file] [--warmup n] [--passes n]");
+			System.exit(1);
+			return;
+		}
+
+		ChatFixtures.bootstrap();
+		RegistryOps<JsonElement> ops = ChatCorpus.builtinOps();
+		List<ChatCorpus.Entry> entries = ChatCorpus.read(corpus, ops);
+		if (entries.isEmpty()) {
+			System.err.println("Corpus " + corpus + " has no messages");
+			System.exit(1);
+			return;
+		}
+
+		for (int pass = 0; pass < warmup; pass++) {
+			for (ChatCorpus.Entry entry : entries) {
+				ChatUtil.applyPlayerColor(entry.message(), entry.players());
+			}
+		}
+
+		long[] latencies = new long[entries.size() * passes];
+		List<Component> recolored = new ArrayList<>(entries.size());
+		int sample = 0;
+		long start = System.nanoTime();
+		for (int pass = 0; pass < passes; pass++) {
+			for (ChatCorpus.Entry entry : entries) {
+				long before = System.nanoTime();
+				Component result = ChatUtil.applyPlayerColor(entry.message(), entry.players());
+				latencies[sample++] = System.nanoTime() - before;
+				if (pass == 0) recolored.add(result);
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		Arrays.sort(latencies);
+		System.out.printf("%d messages x %d passes in %.1f ms%n", entries.size(), passes, elapsed / 1e6);
+		System.out.printf("%.0f msgs/sec%n", latencies.length / (elapsed / 1e9));
+		System.out.printf("p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n",
+				micros(percentile(latencies, 0.50)),
+				micros(percentile(latencies, 0.90)),
+				micros(percentile(latencies, 0.99)),
+				micros(percentile(latencies, 0.999)),
+				micros(latencies[latencies.length - 1])
+		);
+
+		List<String> encoded = new ArrayList<>(recolored.size());
+		for (Component component : recolored) {
+			encoded.add(ChatCorpus.encode(component, ops));
+		}
+
+		if (output != null) {
+			try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+				for (String line : encoded) {
+					writer.write(line);
+					writer.newLine();
+				}
+			}
+			System.out.println("Wrote recolored messages to " + output);
+		}
+
+		if (baseline != null) {
+			diff(encoded, Files.readAllLines(baseline), entries, ops);
+		}
+	}
+
+	private static void diff(List<String> encoded, List<String> baseline, List<ChatCorpus.Entry> entries, RegistryOps<JsonElement> ops) {
+		if (baseline.size() != encoded.size()) {
+			System.out.printf("Baseline has %d messages, corpus has %d%n", baseline.size(), encoded.size());
+		}
+
+		int differences = 0;
+		for (int i = 0; i < Math.min(baseline.size(), encoded.size()); i++) {
+			if (baseline.get(i).equals(encoded.get(i))) continue;
+
+			if (++differences <= MAX_REPORTED_DIFFS) {
+				System.out.printf("Message %d differs%n  input:    %s%n  baseline: %s%n  current:  %s%n",
+						i, ChatCorpus.encode(entries.get(i).message(), ops), baseline.get(i), encoded.get(i));
+			}
+		}
+		System.out.printf("%d of %d messages differ from the baseline%n", differences, encoded.size());
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+	}
+
+	private static String micros(long nanos) {
+		return "%.2fus".formatted(nanos / 1e3);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.FutureTask;
+
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.components.ChatComponent;
+import net.minecraft.network.chat.Component;
+
+/**
+ * Limits how long recoloring may take each frame.
+ * <p>
+ * Once a frame's budget is spent, messages are added to the chat uncolored, and recolored
+ * in place at the start of the following frames, oldest first. If more than
+ * {@link #MAX_BACKLOG} messages are waiting, further ones are left uncolored.
+ * <p>
+ * Only used on the main thread.
+ */
+public final class ChatBacklog {
+
+	private ChatBacklog() {}
+
+	private static final int MAX_BACKLOG = 256;
+
+	private static final Deque<Deferred> DEFERRED = new ArrayDeque<>();
+	private static long spent;
+
+	private record Deferred(Component original, @Nullable FutureTask<Component> task) {}
+
+	/**
+	 * Resets the budget, then spends it on the messages left over from previous frames.
+	 */
+	public static void startFrame() {
+		spent = 0;
+		if (DEFERRED.isEmpty()) return;
+		if (!ChatColors.settings().recolorsMessages()) {
+			clear();
+			return;
+		}
+
+		long budget = budget();
+		ChatComponent chat = Minecraft.getInstance().gui.getChat();
+		while (!DEFERRED.isEmpty() && (budget <= 0 || spent < budget)) {
+			Deferred deferred = DEFERRED.pollFirst();
+			// It may have been pushed out of the chat, or the chat may have been cleared
+			int index = ChatHistory.indexOf(chat, deferred.original);
+			if (index < 0) {
+				if (deferred.task != null) deferred.task.cancel(false);
+				continue;
+			}
+
+			long start = System.nanoTime();
+			Component recolored = ChatPipeline.await(deferred.original, deferred.task);
+			if (recolored != deferred.original) {
+				if (ChatHistory.replace(chat, index, recolored)) HistoryRecolor.onLinesMoved();
+				ChatHistory.remember(recolored, deferred.original);
+			}
+			spent += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Recolors a message being added to the chat, unless this frame's budget is spent.
+	 */
+	public static Component recolor(Component component) {
+		long budget = budget();
+		FutureTask<Component> task = ChatPipeline.claim(component);
+		if (budget > 0 && spent >= budget && (task == null || !task.isDone())) {
+			if (DEFERRED.size() < MAX_BACKLOG) {
+				DEFERRED.addLast(new Deferred(component, task));
+			} else if (task != null) {
+				task.cancel(false);
+			}
+			return component;
+		}
+
+		long start = System.nanoTime();
+		Component recolored = ChatPipeline.await(component, task);
+		spent += System.nanoTime() - start;
+		ChatHistory.remember(recolored, component);
+		return recolored;
+	}
+
+	public static void clear() {
+		Deferred deferred;
+		while ((deferred = DEFERRED.pollFirst()) != null) {
+			if (deferred.task != null) deferred.task.cancel(false);
+		}
+	}
+
+	private static long budget() {
+		return ChatColors.settings().recolorBudgetMicros() * 1000L;
+	}
+}
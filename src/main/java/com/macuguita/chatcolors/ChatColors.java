@@ -22,8 +22,11 @@
 
 package com.macuguita.chatcolors;
 
+import java.util.List;
+
 import folk.sisby.kaleido.api.WrappedConfig;
 import folk.sisby.kaleido.lib.quiltconfig.api.annotations.Comment;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,7 +35,61 @@ public class ChatColors {
 	public static final String MOD_ID = "chatcolors";
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 
-	public static Config CONFIG = WrappedConfig.createToml(Platform.INSTANCE.getConfigDir(), "", MOD_ID, Config.class);
+	// Loaded on first use, so that tools running outside of the game can supply their own
+	// settings instead, see useSettings
+	private static volatile @Nullable ConfigSnapshot settings;
+
+	/**
+	 * Called by each loader's entrypoint.
+	 */
+	public static void init() {
+		ConfigWatcher.start();
+	}
+
+	/**
+	 * Called by each loader's client entrypoint, after {@link #init()}.
+	 */
+	public static void initClient() {
+		if (settings().warmUp()) Warmup.start();
+	}
+
+	/**
+	 * The way to read the config, which is loaded on first use.
+	 *
+	 * @return the config as it was last loaded, safe to read from any thread
+	 */
+	public static ConfigSnapshot settings() {
+		ConfigSnapshot current = settings;
+		return current != null ? current : loadSettings();
+	}
+
+	/**
+	 * Uses the given settings instead of loading the config file, for running outside of the
+	 * game where there is no loader to find the config directory with.
+	 */
+	static void useSettings(ConfigSnapshot snapshot) {
+		settings = snapshot;
+	}
+
+	private static synchronized ConfigSnapshot loadSettings() {
+		ConfigSnapshot current = settings;
+		if (current != null) return current;
+		current = ConfigSnapshot.compile(load());
+		settings = current;
+		return current;
+	}
+
+	/**
+	 * Reads the config file again, and swaps in the new settings.
+	 */
+	public static synchronized void reload() {
+		settings = ConfigSnapshot.compile(load());
+		LOGGER.info("Reloaded config");
+	}
+
+	private static Config load() {
+		return WrappedConfig.createToml(Platform.INSTANCE.getConfigDir(), "", MOD_ID, Config.class);
+	}
 
 	public static class Config extends WrappedConfig {
 		@Comment("Whether all of the mods features should be enabled or not.")
@@ -44,6 +101,14 @@ public class ChatColors {
 		@Comment("Whether the chat colors should use the same colors as the locator bar.")
 		public boolean useLocatorBarColors = true;
 
+		@Comment("Whether the players on the server should get colors spread as evenly as possible, instead of")
+		@Comment("colors derived from their name or UUID. Players keep their color until you leave the server.")
+		public boolean spreadHues = false;
+
+		@Comment("Whether the UUIDs of players seen in chat or on the player list should be remembered across sessions,")
+		@Comment("so players that aren't on the player list still get the colors of their UUID. Each server remembers its own players.")
+		public boolean rememberPlayers = true;
+
 		@Comment("Whether the chat colors should apply to your own messages.")
 		public boolean colorSelf = true;
 
@@ -52,5 +117,48 @@ public class ChatColors {
 		@Comment("this should be used when the server changes your chat color to something that is")
 		@Comment("not the default one, e.g. Hypixel making your chat gray")
 		public boolean overrideAllColor = false;
+
+		@Comment("Whether the sender's name should be colored by the server when the mod is installed on it,")
+		@Comment("including the one of a singleplayer world, so that players without the mod see the colors too.")
+		@Comment("In singleplayer and LAN worlds, colorSelf also applies to the host's own messages.")
+		public boolean colorOnServer = false;
+
+		@Comment("Whether messages should be recolored on a background thread as soon as their packet arrives,")
+		@Comment("instead of on the render thread when they are added to the chat.")
+		public boolean recolorOnPacketReceipt = false;
+
+		@Comment("Whether messages should be kept as they were received and only colored while they are rendered.")
+		@Comment("This is cheaper for busy chats, but player names are only recognized through their insertion,")
+		@Comment("and brackets around names keep their own color.")
+		public boolean colorWhileRendering = false;
+
+		@Comment("Whether the names of players mentioned in a message should be colored with their own colors.")
+		@Comment("Only applies to messages with a known sender, and not while coloring messages as they are rendered.")
+		public boolean colorMentions = false;
+
+		@Comment("Parts of messages that should never be recolored, as target:op:value rules.")
+		@Comment("Targets are click, insertion, text and color. Ops are equals, prefix, suffix, contains and pattern,")
+		@Comment("where # in a pattern matches any digit, e.g. click:pattern:##/##/####.")
+		@Comment("Color rules only support equals, e.g. color:equals:#AAAAAA.")
+		public List<String> preserveRules = List.of();
+
+		@Comment("How long recoloring may take each frame, in microseconds. Messages past it are shown uncolored")
+		@Comment("and recolored on the following frames, which keeps bursts of messages from causing hitches.")
+		@Comment("Set to 0 to recolor every message right away.")
+		public int recolorBudgetMicros = 2000;
+
+		@Comment("Whether every message added to the chat should be recorded to the chatcolors-corpus folder.")
+		@Comment("This is meant for development, recordings can be replayed offline to benchmark the mod.")
+		public boolean recordChatCorpus = false;
+
+		@Comment("Whether the chat code should be warmed up on a background thread while the game loads,")
+		@Comment("so that the first messages on a server aren't slower to recolor than the rest.")
+		public boolean warmUp = true;
+
+		@Comment("Whether the time spent recoloring messages should be measured, see /chatcolors stats.")
+		public boolean collectStats = false;
+
+		@Comment("Whether the measured times should also be shown on screen while collectStats is enabled.")
+		public boolean showStatsOverlay = false;
 	}
 }
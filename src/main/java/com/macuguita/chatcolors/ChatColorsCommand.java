@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.function.BiConsumer;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+
+import net.minecraft.network.chat.Component;
+
+/**
+ * The {@code /chatcolors} client command, built for whichever command source the loader
+ * uses on the client.
+ */
+public final class ChatColorsCommand {
+
+	private ChatColorsCommand() {}
+
+	/**
+	 * @param feedback sends a line of feedback to the command's source
+	 */
+	public static <S> LiteralArgumentBuilder<S> create(BiConsumer<S, Component> feedback) {
+		return LiteralArgumentBuilder.<S>literal(ChatColors.MOD_ID)
+				.then(LiteralArgumentBuilder.<S>literal("stats")
+						.executes(context -> {
+							if (!ChatColors.settings().collectStats()) {
+								feedback.accept(context.getSource(), Component.literal("Stats are only collected while collectStats is enabled"));
+							}
+							for (String line : ChatStats.report()) {
+								feedback.accept(context.getSource(), Component.literal(line));
+							}
+							return 1;
+						})
+						.then(LiteralArgumentBuilder.<S>literal("reset")
+								.executes(context -> {
+									ChatStats.reset();
+									feedback.accept(context.getSource(), Component.literal("Stats reset"));
+									return 1;
+								})
+						)
+				);
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.mojang.serialization.JsonOps;
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.ComponentSerialization;
+import net.minecraft.resources.RegistryOps;
+
+/**
+ * Records the messages reaching the chat to a corpus that can be replayed offline.
+ * <p>
+ * A corpus is a JSON lines file. A {@code {"players": {...}, "local": ...}} line records
+ * the player list, and applies to every {@code {"message": ...}} line after it until the
+ * next one. A new file is started each time the client joins a server.
+ */
+public final class ChatCorpus {
+
+	private ChatCorpus() {}
+
+	private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss");
+
+	private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ChatColors Corpus Writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Only touched by the writer thread
+	private static @Nullable BufferedWriter writer;
+	private static PlayerRegistry.@Nullable Snapshot written;
+
+	public record Entry(Component message, PlayerRegistry.Snapshot players) {}
+
+	public static Path directory() {
+		return Platform.INSTANCE.getConfigDir().resolve(ChatColors.MOD_ID + "-corpus");
+	}
+
+	/**
+	 * Makes the next recorded message start a new corpus file.
+	 */
+	public static void startSession() {
+		WRITER.execute(ChatCorpus::close);
+	}
+
+	public static void record(Component component) {
+		if (!ChatColors.settings().recordChatCorpus()) return;
+
+		PlayerRegistry.Snapshot players = PlayerRegistry.snapshot();
+		RegistryOps<JsonElement> ops = clientOps();
+		WRITER.execute(() -> write(component, players, ops));
+	}
+
+	public static List<Entry> read(Path file, RegistryOps<JsonElement> ops) throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		PlayerRegistry.Snapshot players = PlayerRegistry.Snapshot.EMPTY;
+		try (BufferedReader reader = Files.newBufferedReader(file)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isBlank()) continue;
+
+				JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+				if (json.has("players")) {
+					players = decodePlayers(json);
+				} else {
+					entries.add(new Entry(decode(json.get("message"), ops), players));
+				}
+			}
+		}
+		return entries;
+	}
+
+	public static String encode(Component component, RegistryOps<JsonElement> ops) {
+		return ComponentSerialization.CODEC.encodeStart(ops, component).getOrThrow().toString();
+	}
+
+	public static Component decode(JsonElement json, RegistryOps<JsonElement> ops) {
+		return ComponentSerialization.CODEC.parse(ops, json).getOrThrow();
+	}
+
+	/**
+	 * Ops for replaying outside of the game, where only the built-in registries exist.
+	 */
+	public static RegistryOps<JsonElement> builtinOps() {
+		return RegistryAccess.fromRegistryOfRegistries(BuiltInRegistries.REGISTRY).createSerializationContext(JsonOps.INSTANCE);
+	}
+
+	private static RegistryOps<JsonElement> clientOps() {
+		ClientPacketListener connection = Minecraft.getInstance().getConnection();
+		if (connection == null) return builtinOps();
+		return connection.registryAccess().createSerializationContext(JsonOps.INSTANCE);
+	}
+
+	private static void write(Component component, PlayerRegistry.Snapshot players, RegistryOps<JsonElement> ops) {
+		try {
+			JsonObject message = new JsonObject();
+			message.add("message", ComponentSerialization.CODEC.encodeStart(ops, component).getOrThrow());
+
+			if (writer == null) {
+				Path directory = directory();
+				Files.createDirectories(directory);
+				writer = Files.newBufferedWriter(directory.resolve(LocalDateTime.now().format(FILE_NAME) + ".jsonl"));
+				written = null;
+			}
+			if (players != written) {
+				writer.write(encodePlayers(players).toString());
+				writer.newLine();
+				written = players;
+			}
+			writer.write(message.toString());
+			writer.newLine();
+			writer.flush();
+		} catch (IOException | IllegalStateException e) {
+			ChatColors.LOGGER.error("Failed to record chat message", e);
+		}
+	}
+
+	private static void close() {
+		if (writer == null) return;
+		try {
+			writer.close();
+		} catch (IOException e) {
+			ChatColors.LOGGER.error("Failed to close chat corpus", e);
+		}
+		writer = null;
+	}
+
+	private static JsonObject encodePlayers(PlayerRegistry.Snapshot players) {
+		JsonObject byName = new JsonObject();
+		players.byName().forEach((name, id) -> byName.addProperty(name, id.toString()));
+
+		JsonObject json = new JsonObject();
+		json.add("players", byName);
+		if (players.localName() != null) {
+			json.addProperty("local", players.localName());
+		}
+		return json;
+	}
+
+	private static PlayerRegistry.Snapshot decodePlayers(JsonObject json) {
+		Map<String, UUID> byName = new HashMap<>();
+		Map<UUID, String> byId = new HashMap<>();
+		for (Map.Entry<String, JsonElement> player : json.getAsJsonObject("players").entrySet()) {
+			UUID id = UUID.fromString(player.getValue().getAsString());
+			byName.put(player.getKey(), id);
+			byId.put(id, player.getKey());
+		}
+		String localName = json.has("local") ? json.get("local").getAsString() : null;
+		return new PlayerRegistry.Snapshot(Map.copyOf(byName), Map.copyOf(byId), localName);
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import net.minecraft.ChatFormatting;
+import net.minecraft.SharedConstants;
+import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.ComponentUtils;
+import net.minecraft.network.chat.HoverEvent;
+import net.minecraft.network.chat.MutableComponent;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.EntityType;
+
+/**
+ * Synthetic chat messages and player lists shaped like the ones seen on real servers.
+ * Used to warm up the chat code at startup, see {@link Warmup}, and by the benchmarks.
+ */
+final class ChatFixtures {
+
+	private ChatFixtures() {}
+
+	static final String SENDER = "Player0000";
+
+	// Every path of the recoloring, without remembering or recording anything
+	static final ConfigSnapshot SETTINGS = new ConfigSnapshot(
+			true, true, true, false, false, true, false, false, false, true, false,
+			0, false, false, false, false, true,
+			PreserveRules.compile(List.of(), true)
+	);
+
+	enum Message {
+		// Signed chat as formatted by a vanilla server
+		VANILLA,
+		// A single literal full of legacy format codes, as sent by chat plugins
+		PLUGIN,
+		// A translatable death message with nested translatable args
+		DEATH,
+		// Vanilla chat prefixed by a ChatPatches timestamp
+		TIMESTAMPED
+	}
+
+	/**
+	 * Loads the game's registries and uses the fixture settings, for running outside of the
+	 * game.
+	 */
+	static void bootstrap() {
+		ChatColors.useSettings(SETTINGS);
+		SharedConstants.tryDetectVersion();
+		Bootstrap.bootStrap();
+	}
+
+	/**
+	 * @return a player list of {@code count} players, always including {@link #SENDER}
+	 */
+	static PlayerRegistry.Snapshot players(int count) {
+		Map<String, UUID> byName = new HashMap<>();
+		Map<UUID, String> byId = new HashMap<>();
+		for (int i = 0; i < Math.max(count, 1); i++) {
+			String name = "Player%04d".formatted(i);
+			byName.put(name, uuid(name));
+			byId.put(uuid(name), name);
+		}
+		return new PlayerRegistry.Snapshot(Map.copyOf(byName), Map.copyOf(byId), null);
+	}
+
+	static UUID uuid(String name) {
+		return UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+	}
+
+	static Component message(Message message) {
+		return switch (message) {
+			case VANILLA -> vanillaChat(SENDER, "hello there, has anyone seen my diamonds?");
+			case PLUGIN -> Component.literal("§8[§6VIP§8] §7<§b" + SENDER
+					+ "§7> §fhello §ethere§f, has §aanyone §fseen my §b§ldiamonds§r§f?");
+			case DEATH -> Component.translatable(
+					"death.attack.player.item",
+					playerName(SENDER),
+					playerName("Player0001"),
+					ComponentUtils.wrapInSquareBrackets(Component.translatable("item.minecraft.diamond_sword"))
+							.withStyle(ChatFormatting.AQUA)
+			);
+			case TIMESTAMPED -> Component.empty()
+					.append(Component.literal("[12:34:56] ").withStyle(style -> style
+							.withColor(ChatFormatting.GRAY)
+							.withClickEvent(new ClickEvent.SuggestCommand("10/17/2026"))))
+					.append(vanillaChat(SENDER, "hello there, has anyone seen my diamonds?"));
+		};
+	}
+
+	/**
+	 * A message that only the given strategy can find the sender of.
+	 */
+	static Component messageFor(ChatUtil.Strategy strategy) {
+		Component body = Component.literal(" hello there, has anyone seen my diamonds?");
+		return switch (strategy) {
+			case INSERTION -> vanillaChat(SENDER, "hello there, has anyone seen my diamonds?");
+			case CLICK_EVENT -> Component.empty()
+					.append(Component.literal(SENDER).withStyle(style -> style
+							.withClickEvent(new ClickEvent.RunCommand("/msg " + SENDER))))
+					.append(body);
+			case SHOW_ENTITY -> Component.empty()
+					.append(Component.literal("[VIP] " + SENDER).withStyle(style -> style
+							.withHoverEvent(new HoverEvent.ShowEntity(
+									new HoverEvent.EntityTooltipInfo(EntityType.PLAYER, uuid(SENDER), null)))))
+					.append(body);
+			case BRACKETS -> Component.empty()
+					.append("<")
+					.append(SENDER)
+					.append(">")
+					.append(body);
+		};
+	}
+
+	static Component vanillaChat(String sender, String body) {
+		return Component.translatable("chat.type.text", playerName(sender), Component.literal(body));
+	}
+
+	/**
+	 * A player name styled the way vanilla styles it.
+	 */
+	static MutableComponent playerName(String name) {
+		return Component.literal(name).withStyle(style -> style
+				.withInsertion(name)
+				.withClickEvent(new ClickEvent.SuggestCommand("/tell " + name + " "))
+				.withHoverEvent(new HoverEvent.ShowEntity(
+						new HoverEvent.EntityTooltipInfo(EntityType.PLAYER, uuid(name), Component.literal(name)))));
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.MapMaker;
+import com.macuguita.chatcolors.mixin.ChatComponentAccessor;
+
+import net.minecraft.client.GuiMessage;
+import net.minecraft.client.GuiMessageTag;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.components.ChatComponent;
+import net.minecraft.client.gui.components.ComponentRenderUtils;
+import net.minecraft.network.chat.Component;
+import net.minecraft.util.FormattedCharSequence;
+import net.minecraft.util.Mth;
+
+/**
+ * Replaces messages that are already in the chat, along with the lines they were wrapped
+ * into.
+ * <p>
+ * Both of {@link ChatComponent}'s lists are ordered newest first, and the lines of a
+ * message are contiguous, starting with the one marked as the end of its entry. So the
+ * lines of the n-th message start at the n-th such line. Lines may run out before the
+ * messages do, in which case only the message itself is replaced.
+ */
+public final class ChatHistory {
+
+	private ChatHistory() {}
+
+	// The message each recolored message was made from, so it can be recolored again
+	private static final Map<Component, Component> ORIGINALS = new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * Remembers that a message shown in the chat is the recolored version of another.
+	 */
+	public static void remember(Component shown, Component original) {
+		if (shown != original) {
+			ORIGINALS.put(shown, original);
+		}
+	}
+
+	/**
+	 * @return the message a message shown in the chat was made from, or itself
+	 */
+	public static Component original(Component shown) {
+		return ORIGINALS.getOrDefault(shown, shown);
+	}
+
+	public static List<GuiMessage> messages(ChatComponent chat) {
+		return ((ChatComponentAccessor) chat).chatcolors$getAllMessages();
+	}
+
+	/**
+	 * @return the index of the message with the given content, compared by identity, or -1
+	 */
+	public static int indexOf(ChatComponent chat, Component content) {
+		List<GuiMessage> messages = messages(chat);
+		for (int i = 0; i < messages.size(); i++) {
+			if (messages.get(i).content() == content) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Replaces the content of the message at the given index, and rewraps its lines.
+	 *
+	 * @return true if the message now has a different number of lines, moving the older ones
+	 */
+	public static boolean replace(ChatComponent chat, int index, Component content) {
+		return replace(chat, index, content, linesStart(chat, index));
+	}
+
+	/**
+	 * Same as {@link #replace(ChatComponent, int, Component)}, for when the index of the
+	 * message's first line is already known, see {@link #nextLinesStart}. Lines are replaced
+	 * in place when the message still wraps into as many of them.
+	 *
+	 * @param linesStart the index of the message's first line, or -1 if it has none
+	 * @return true if the message now has a different number of lines, moving the older ones
+	 */
+	public static boolean replace(ChatComponent chat, int index, Component content, int linesStart) {
+		List<GuiMessage> messages = messages(chat);
+		GuiMessage message = messages.get(index);
+		GuiMessage replacement = new GuiMessage(message.addedTime(), content, message.signature(), message.tag());
+		messages.set(index, replacement);
+
+		if (linesStart < 0) return false;
+		List<GuiMessage.Line> lines = lines(chat);
+		int end = linesEnd(lines, linesStart);
+
+		List<FormattedCharSequence> wrapped = wrap(chat, replacement);
+		if (wrapped.size() == end - linesStart) {
+			for (int i = 0; i < wrapped.size(); i++) {
+				int line = wrapped.size() - 1 - i;
+				lines.set(linesStart + i, new GuiMessage.Line(message.addedTime(), wrapped.get(line), message.tag(), line == wrapped.size() - 1));
+			}
+			return false;
+		}
+
+		List<GuiMessage.Line> replacementLines = new ArrayList<>(wrapped.size());
+		for (int i = wrapped.size() - 1; i >= 0; i--) {
+			replacementLines.add(new GuiMessage.Line(message.addedTime(), wrapped.get(i), message.tag(), i == wrapped.size() - 1));
+		}
+		List<GuiMessage.Line> previousLines = lines.subList(linesStart, end);
+		previousLines.clear();
+		previousLines.addAll(replacementLines);
+		return true;
+	}
+
+	/**
+	 * @return the index of the first line of the message at the given index, or -1 if it
+	 * has none. Scans the lines, so passes over many messages use {@link #nextLinesStart}.
+	 */
+	public static int linesStart(ChatComponent chat, int index) {
+		List<GuiMessage.Line> lines = lines(chat);
+		int seen = -1;
+		for (int i = 0; i < lines.size(); i++) {
+			if (lines.get(i).endOfEntry() && ++seen == index) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param linesStart the index of a message's first line, or -1
+	 * @return the index of the first line of the next older message, or -1 if it has none
+	 */
+	public static int nextLinesStart(ChatComponent chat, int linesStart) {
+		if (linesStart < 0) return -1;
+		List<GuiMessage.Line> lines = lines(chat);
+		int end = linesEnd(lines, linesStart);
+		return end < lines.size() ? end : -1;
+	}
+
+	/**
+	 * Colors the wrapped lines of a message while they are rendered, if that mode is enabled.
+	 */
+	public static List<FormattedCharSequence> decorate(List<FormattedCharSequence> lines, Component content) {
+		if (!ChatColors.settings().colorsLines()) return lines;
+
+		StyleOverride override = new StyleOverride(content);
+		List<FormattedCharSequence> decorated = new ArrayList<>(lines.size());
+		for (FormattedCharSequence line : lines) {
+			decorated.add(override.decorate(line));
+		}
+		return decorated;
+	}
+
+	// Wraps the message the same way ChatComponent.addMessageToDisplayQueue does
+	private static List<FormattedCharSequence> wrap(ChatComponent chat, GuiMessage message) {
+		int width = Mth.floor(chat.getWidth() / chat.getScale());
+		GuiMessageTag.Icon icon = message.icon();
+		if (icon != null) {
+			width -= icon.width + 4 + 2;
+		}
+		List<FormattedCharSequence> lines = ComponentRenderUtils.wrapComponents(message.content(), width, Minecraft.getInstance().font);
+		return decorate(lines, message.content());
+	}
+
+	private static List<GuiMessage.Line> lines(ChatComponent chat) {
+		return ((ChatComponentAccessor) chat).chatcolors$getTrimmedMessages();
+	}
+
+	private static int linesEnd(List<GuiMessage.Line> lines, int linesStart) {
+		int end = linesStart + 1;
+		while (end < lines.size() && !lines.get(end).endOfEntry()) end++;
+		return end;
+	}
+}
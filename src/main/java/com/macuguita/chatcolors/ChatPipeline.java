@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.network.chat.Component;
+
+/**
+ * Recolors incoming messages on a background thread as soon as their packet arrives, so
+ * that {@link ChatUtil#applyPlayerColor} doesn't have to run on the render thread.
+ * <p>
+ * Messages are processed in arrival order by a single worker, and at most {@link #CAPACITY}
+ * of them are in flight at once. Anything that doesn't fit, or that reaches the chat
+ * without having been submitted, is recolored synchronously by {@link #take} instead.
+ */
+public final class ChatPipeline {
+
+	private ChatPipeline() {}
+
+	private static final int CAPACITY = 256;
+	// Messages that weren't added to the chat this long after arriving never will be
+	private static final long MAX_AGE_NANOS = 5_000_000_000L;
+
+	private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ChatColors Pipeline");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Offered to by the network thread, polled by the main thread
+	private static final Deque<Pending> PENDING = new ConcurrentLinkedDeque<>();
+	private static final AtomicInteger SIZE = new AtomicInteger();
+
+	private record Pending(Component input, FutureTask<Component> task, long submittedAt) {}
+
+	/**
+	 * Starts recoloring a message that is about to be added to the chat.
+	 */
+	public static void submit(Component component) {
+		ConfigSnapshot settings = ChatColors.settings();
+		if (!settings.recolorsMessages() || !settings.recolorOnPacketReceipt()) return;
+		if (SIZE.get() >= CAPACITY) return;
+		// Player list packets that arrived before this one aren't applied yet, the main thread
+		// recolors it once they are
+		if (!PlayerRegistry.isCurrent()) return;
+
+		PlayerRegistry.Snapshot players = PlayerRegistry.snapshot();
+		FutureTask<Component> task = new FutureTask<>(() -> ChatUtil.applyPlayerColor(component, players));
+		SIZE.incrementAndGet();
+		PENDING.addLast(new Pending(component, task, System.nanoTime()));
+		EXECUTOR.execute(task);
+	}
+
+	/**
+	 * Returns the recolored version of a message being added to the chat, either from the
+	 * pipeline or by recoloring it right away.
+	 */
+	public static Component take(Component component) {
+		return await(component, claim(component));
+	}
+
+	/**
+	 * Claims the recoloring started for a message being added to the chat, if there is one.
+	 */
+	public static @Nullable FutureTask<Component> claim(Component component) {
+		Pending pending = poll(component);
+		return pending == null ? null : pending.task;
+	}
+
+	/**
+	 * Returns the result of a claimed recoloring, or recolors the message right away if
+	 * none was claimed.
+	 */
+	public static Component await(Component component, @Nullable FutureTask<Component> task) {
+		if (task == null) {
+			return ChatUtil.applyPlayerColor(component);
+		}
+
+		// If the worker hasn't reached it yet, run it here instead of waiting on the queue,
+		// otherwise this just waits for the worker to finish it
+		task.run();
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return component;
+		} catch (ExecutionException e) {
+			ChatColors.LOGGER.error("Failed to recolor message", e.getCause());
+			return component;
+		}
+	}
+
+	public static void clear() {
+		Pending pending;
+		while ((pending = PENDING.pollFirst()) != null) {
+			drop(pending);
+		}
+	}
+
+	/**
+	 * Claims the pending entry for the given message. Entries submitted before it, and
+	 * entries that have been waiting too long, were never added to the chat (e.g. hidden or
+	 * blocked messages, or messages rewritten by other mods), so they are dropped.
+	 */
+	private static @Nullable Pending poll(Component component) {
+		long now = System.nanoTime();
+		Pending oldest;
+		while ((oldest = PENDING.peekFirst()) != null && now - oldest.submittedAt > MAX_AGE_NANOS) {
+			drop(PENDING.pollFirst());
+		}
+
+		int skipped = 0;
+		for (Pending pending : PENDING) {
+			if (pending.input == component || pending.input.equals(component)) {
+				for (int i = 0; i < skipped; i++) {
+					drop(PENDING.pollFirst());
+				}
+				PENDING.pollFirst();
+				SIZE.decrementAndGet();
+				return pending;
+			}
+			skipped++;
+		}
+		return null;
+	}
+
+	private static void drop(@Nullable Pending pending) {
+		if (pending == null) return;
+		pending.task.cancel(false);
+		SIZE.decrementAndGet();
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Latency histograms for each stage of {@link ChatUtil#applyPlayerColor}, and counters for
+ * which strategy found the sender.
+ * <p>
+ * Only collected while {@code collectStats} is enabled. Recording never locks, so the
+ * {@link ChatPipeline} worker and the main thread can record at the same time.
+ */
+public final class ChatStats {
+
+	private ChatStats() {}
+
+	private static final com.sun.management.@Nullable ThreadMXBean THREADS =
+			ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+					&& threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()
+					? threads : null;
+
+	public enum Stage {
+		CONVERT("convert"),
+		EXTRACT("extract"),
+		COLOR("color"),
+		RECONSTRUCT("reconstruct"),
+		TOTAL("total");
+
+		private final String name;
+		private final Histogram histogram = new Histogram();
+
+		Stage(String name) {
+			this.name = name;
+		}
+	}
+
+	// One counter per strategy, the last one counts messages without a sender
+	private static final AtomicLongArray STRATEGIES = new AtomicLongArray(ChatUtil.Strategy.VALUES.length + 1);
+	private static final LongAdder ALLOCATED = new LongAdder();
+	private static final LongAdder MESSAGES = new LongAdder();
+
+	private static final Timer DISABLED = new Timer(0, 0);
+
+	public static Timer start(ConfigSnapshot settings) {
+		if (!settings.collectStats()) return DISABLED;
+		long now = System.nanoTime();
+		return new Timer(now, allocatedBytes());
+	}
+
+	/**
+	 * Counts the strategy that found the sender, or a message without one.
+	 */
+	public static void recordStrategy(ConfigSnapshot settings, ChatUtil.@Nullable Strategy strategy) {
+		if (!settings.collectStats()) return;
+		STRATEGIES.incrementAndGet(strategy == null ? ChatUtil.Strategy.VALUES.length : strategy.ordinal());
+	}
+
+	public static void reset() {
+		for (Stage stage : Stage.values()) {
+			stage.histogram.reset();
+		}
+		for (int i = 0; i < STRATEGIES.length(); i++) {
+			STRATEGIES.set(i, 0);
+		}
+		ALLOCATED.reset();
+		MESSAGES.reset();
+	}
+
+	/**
+	 * @return one line per stage, then the strategy counters
+	 */
+	public static List<String> report() {
+		List<String> lines = new ArrayList<>();
+		long messages = MESSAGES.sum();
+		lines.add(THREADS == null
+				? "%d messages".formatted(messages)
+				: "%d messages, %d bytes allocated per message".formatted(messages, messages == 0 ? 0 : ALLOCATED.sum() / messages));
+		for (Stage stage : Stage.values()) {
+			Histogram histogram = stage.histogram;
+			lines.add("%s: p50 %s, p99 %s, max %s".formatted(
+					stage.name,
+					micros(histogram.percentile(0.50)),
+					micros(histogram.percentile(0.99)),
+					micros(histogram.max.get())
+			));
+		}
+
+		StringBuilder strategies = new StringBuilder("senders:");
+		for (ChatUtil.Strategy strategy : ChatUtil.Strategy.VALUES) {
+			strategies.append(' ').append(strategy.name().toLowerCase()).append(' ').append(STRATEGIES.get(strategy.ordinal()));
+		}
+		strategies.append(", none ").append(STRATEGIES.get(ChatUtil.Strategy.VALUES.length));
+		lines.add(strategies.toString());
+		return lines;
+	}
+
+	/**
+	 * @return the bytes allocated by the current thread so far, or 0 if the JVM can't tell
+	 */
+	public static long allocatedBytes() {
+		return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	private static String micros(long nanos) {
+		return "%.1fus".formatted(nanos / 1e3);
+	}
+
+	/**
+	 * Times the stages of a single message. Not thread safe, each message gets its own.
+	 */
+	public static final class Timer {
+
+		private final long allocatedAtStart;
+		private final long start;
+		private long lap;
+
+		private Timer(long start, long allocatedAtStart) {
+			this.start = start;
+			this.lap = start;
+			this.allocatedAtStart = allocatedAtStart;
+		}
+
+		/**
+		 * Records the time since the previous lap as the given stage.
+		 */
+		public void lap(Stage stage) {
+			if (this == DISABLED) return;
+			long now = System.nanoTime();
+			stage.histogram.record(now - lap);
+			lap = now;
+		}
+
+		public void finish() {
+			if (this == DISABLED) return;
+			Stage.TOTAL.histogram.record(System.nanoTime() - start);
+			ALLOCATED.add(allocatedBytes() - allocatedAtStart);
+			MESSAGES.increment();
+		}
+	}
+
+	/**
+	 * Counts samples in power of two buckets, so percentiles are reported as the upper
+	 * bound of their bucket.
+	 */
+	private static final class Histogram {
+
+		private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+		private final AtomicLong max = new AtomicLong();
+
+		void record(long nanos) {
+			buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(Math.max(nanos, 0)));
+			max.accumulateAndGet(nanos, Math::max);
+		}
+
+		long percentile(double percentile) {
+			long total = 0;
+			for (int i = 0; i < buckets.length(); i++) {
+				total += buckets.get(i);
+			}
+			if (total == 0) return 0;
+
+			long rank = (long) Math.ceil(total * percentile);
+			long seen = 0;
+			for (int i = 0; i < buckets.length(); i++) {
+				seen += buckets.get(i);
+				if (seen >= rank) {
+					return Math.min(i == 0 ? 0 : (1L << i) - 1, max.get());
+				}
+			}
+			return max.get();
+		}
+
+		void reset() {
+			for (int i = 0; i < buckets.length(); i++) {
+				buckets.set(i, 0);
+			}
+			max.set(0);
+		}
+	}
+}
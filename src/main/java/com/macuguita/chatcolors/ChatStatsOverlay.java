@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.Font;
+import net.minecraft.client.gui.GuiGraphics;
+
+/**
+ * Draws the {@link ChatStats} report in the top left corner of the screen.
+ */
+public final class ChatStatsOverlay {
+
+	private ChatStatsOverlay() {}
+
+	private static final int TEXT_COLOR = 0xFFFFFFFF;
+	private static final int BACKGROUND_COLOR = 0x90505050;
+
+	public static void render(GuiGraphics graphics) {
+		ConfigSnapshot settings = ChatColors.settings();
+		if (!settings.collectStats() || !settings.showStatsOverlay()) return;
+
+		Minecraft minecraft = Minecraft.getInstance();
+		if (minecraft.getDebugOverlay().showDebugScreen()) return;
+
+		Font font = minecraft.font;
+		int y = 2;
+		for (String line : ChatStats.report()) {
+			graphics.fill(1, y - 1, 3 + font.width(line), y + font.lineHeight - 1, BACKGROUND_COLOR);
+			graphics.drawString(font, line, 2, y, TEXT_COLOR, false);
+			y += font.lineHeight;
+		}
+	}
+}
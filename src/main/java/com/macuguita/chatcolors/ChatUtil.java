@@ -22,129 +22,289 @@
 
 package com.macuguita.chatcolors;
 
-import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import com.macuguita.chatcolors.jfr.RecolorEvent;
 import dev.terminalmc.chatnotify.util.text.FormatUtil;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import org.jspecify.annotations.Nullable;
 
-import net.minecraft.client.Minecraft;
-import net.minecraft.client.multiplayer.ClientLevel;
-import net.minecraft.client.player.AbstractClientPlayer;
-import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.network.chat.ClickEvent;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.FormattedText;
 import net.minecraft.network.chat.HoverEvent;
 import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.network.chat.Style;
 import net.minecraft.network.chat.TextColor;
-import net.minecraft.server.players.NameAndId;
-import net.minecraft.util.ARGB;
+import net.minecraft.network.chat.contents.PlainTextContents;
+import net.minecraft.world.entity.EntityType;
 
 public final class ChatUtil {
 
 	private ChatUtil() {}
 
-	private static final Minecraft MINECRAFT = Minecraft.getInstance();
+	public static Component applyPlayerColor(Component component) {
+		return applyPlayerColor(component, PlayerRegistry.snapshot());
+	}
 
 	/**
-	 * @param name a player's username
-	 * @return hue in the range {@code 0.0f <= hue <= 1.0f}
+	 * Recolors the message using the given view of the player list. Safe to call off the
+	 * main thread.
 	 */
-	public static float nameToHue(String name) {
-		int hash = name.hashCode();
-		return (float) Math.floorMod(hash, 256) / 255f;
+	public static Component applyPlayerColor(Component component, PlayerRegistry.Snapshot players) {
+		return applyPlayerColor(component, players, ChatColors.settings());
 	}
 
-	/**
-	 * @param uuid A player's UUID
-	 * @return hue in the range {@code 0.0f <= hue <= 1.0f}.
-	 * Uses the same implementation as minecraft waypoints
-	 */
-	public static float UUIDToHue(UUID uuid) {
-		int colorInt = ARGB.setBrightness(ARGB.color(255, uuid.hashCode()), 0.9f);
+	static Component applyPlayerColor(Component component, PlayerRegistry.Snapshot players, ConfigSnapshot settings) {
+		ChatStats.Timer timer = ChatStats.start(settings);
+		RecolorEvent event = new RecolorEvent();
+		long allocatedAtStart = event.isEnabled() ? ChatStats.allocatedBytes() : 0;
+		event.begin();
 
-		int r = (colorInt >> 16) & 0xFF;
-		int g = (colorInt >> 8) & 0xFF;
-		int b = colorInt & 0xFF;
+		Component result = recolor(component, players, settings, timer, event);
 
-		float[] hsv = Color.RGBtoHSB(r, g, b, null);
-		return hsv[0];
+		timer.finish();
+		event.end();
+		if (event.shouldCommit()) {
+			event.allocated = ChatStats.allocatedBytes() - allocatedAtStart;
+			event.describe(component);
+			event.commit();
+		}
+		return result;
 	}
 
-	public static Component applyPlayerColor(Component component) {
-		MutableComponent mutableComponent = component.copy();
-		mutableComponent = FormatUtil.convertToStyledLiteral(mutableComponent);
+	private static Component recolor(
+			Component component,
+			PlayerRegistry.Snapshot players,
+			ConfigSnapshot settings,
+			ChatStats.Timer timer,
+			RecolorEvent event
+	) {
+		// The original tree is shared rather than copied, nothing below modifies it
+		Component converted = FormatUtil.convertToStyledLiteral(component);
+		timer.lap(ChatStats.Stage.CONVERT);
 
-		String playerName = extractPlayerName(mutableComponent);
+		String playerName = extractPlayerName(converted, players, settings, event);
+		timer.lap(ChatStats.Stage.EXTRACT);
 
 		if (playerName == null) {
-			return applyColorToEmpty(mutableComponent, null, false);
+			Component result = applyColorToEmpty(converted, null, false);
+			timer.lap(ChatStats.Stage.RECONSTRUCT);
+			return result;
 		}
 
-		LocalPlayer player = MINECRAFT.player;
-		if (!ChatColors.CONFIG.colorSelf && player != null && playerName.equals(player.nameAndId().name()))
+		if (!settings.colorSelf() && players.isLocalPlayer(playerName))
 			return component;
 
-		UUID playerUUID = null;
-		ClientLevel level = MINECRAFT.level;
-		if (level != null) {
-			for (AbstractClientPlayer cPlayer : level.players()) {
-				NameAndId nameAndId = cPlayer.nameAndId();
-				if (nameAndId.name().equals(playerName)) {
-					playerUUID = nameAndId.id();
-					break;
-				}
-			}
-		}
+		TextColor color = ColorCache.get(settings, playerName, idOf(playerName, players, settings));
+		timer.lap(ChatStats.Stage.COLOR);
+
+		Component result = reconstructWithColor(converted, color, playerName, players, settings);
+		timer.lap(ChatStats.Stage.RECONSTRUCT);
+		return result;
+	}
+
+	/**
+	 * Resolves how the message's sender should be colored, without rebuilding the message.
+	 * Used by {@link StyleOverride} to color chat lines as they are rendered.
+	 *
+	 * @return the sender's name and color, or null if nothing should be colored
+	 */
+	static @Nullable Sender resolveSender(Component component, PlayerRegistry.Snapshot players) {
+		Component converted = FormatUtil.convertToStyledLiteral(component);
+
+		String playerName = extractPlayerName(converted, players);
+		if (playerName == null) return null;
+
+		ConfigSnapshot settings = ChatColors.settings();
+		if (!settings.colorSelf() && players.isLocalPlayer(playerName))
+			return null;
+
+		return new Sender(playerName, ColorCache.get(settings, playerName, idOf(playerName, players, settings)), settings);
+	}
 
-		float hue;
-		if (ChatColors.CONFIG.useLocatorBarColors && playerUUID != null) {
-			hue = UUIDToHue(playerUUID);
-		} else {
-			hue = nameToHue(playerName);
+	record Sender(String name, TextColor color, ConfigSnapshot settings) {}
+
+	/**
+	 * Finds the UUID of a player, falling back to the {@link NameStore} for players that
+	 * aren't on the player list.
+	 */
+	private static @Nullable UUID idOf(String name, PlayerRegistry.Snapshot players, ConfigSnapshot settings) {
+		UUID id = players.getId(name);
+		if (id == null && settings.useLocatorBarColors() && settings.rememberPlayers()) {
+			id = NameStore.get(name);
 		}
-		TextColor color = TextColor.fromRgb(Color.getHSBColor(hue, 0.60f, 1.0f).getRGB());
+		return id;
+	}
 
-		return reconstructWithColor(mutableComponent, color, playerName);
+	/**
+	 * Remembers the UUID of a player name component, which vanilla marks with both the
+	 * plain name as insertion and a ShowEntity hover. Players on the player list were
+	 * already remembered when they joined.
+	 */
+	private static void learnSender(Style style, PlayerRegistry.Snapshot players) {
+		if (!(style.getHoverEvent() instanceof HoverEvent.ShowEntity(HoverEvent.EntityTooltipInfo info))
+				|| info.type != EntityType.PLAYER) return;
+
+		String name = style.getInsertion();
+		if (name == null && info.name.isPresent()) {
+			// The display name may carry a team prefix, which the store rejects
+			name = info.name.get().getString();
+		}
+		if (name != null && !players.contains(name)) NameStore.learn(name, info.uuid);
 	}
 
 	/**
 	 * Attempts to extract the sending player's name from the component tree using
 	 * multiple strategies in order of reliability.
+	 * <p>
+	 * All strategies share a single walk over the tree, see {@link SenderCandidates}. While
+	 * on a server, where the sender was found is remembered per message shape, so that
+	 * messages with a known shape can skip the walk, see {@link MessageShapes}.
 	 */
-	private static @Nullable String extractPlayerName(Component component) {
-		// insertion is set by Minecraft directly on the player name component
-		String fromInsertion = findByInsertion(component);
-		if (fromInsertion != null) return fromInsertion;
+	static @Nullable String extractPlayerName(Component component, PlayerRegistry.Snapshot players) {
+		return extractPlayerName(component, players, ChatColors.settings(), null);
+	}
 
-		// click event command usually ends with the player name
-		String fromClickEvent = findByClickEvent(component);
-		if (fromClickEvent != null) return fromClickEvent;
+	private static @Nullable String extractPlayerName(
+			Component component,
+			PlayerRegistry.Snapshot players,
+			ConfigSnapshot settings,
+			@Nullable RecolorEvent event
+	) {
+		MessageShapes shapes = MessageShapes.current();
+		if (shapes == null) {
+			SenderCandidates candidates = new SenderCandidates(players, Strategy.VALUES);
+			candidates.visit(component);
+			Strategy strategy = candidates.resolve();
+			reportStrategy(strategy, settings, event);
+			return strategy == null ? null : candidates.get(strategy);
+		}
 
-		// ShowEntity hover carries the UUID which we can match against the player list
-		String fromHoverEvent = findByShowEntity(component);
-		if (fromHoverEvent != null) return fromHoverEvent;
+		long fingerprint = fingerprint(component, 0, 1);
+		MessageShapes.Shape shape = shapes.get(fingerprint);
+		if (shape instanceof MessageShapes.Sender(Strategy strategy, int node)) {
+			String name = readSender(component, strategy, node, players);
+			if (name != null) {
+				shapes.recordWin(strategy);
+				reportStrategy(strategy, settings, event);
+				return name;
+			}
+		} else if (shape instanceof MessageShapes.NoSender(long version) && version == players.version()) {
+			// Only trusted while the player list is unchanged, a name may have become valid since
+			reportStrategy(null, settings, event);
+			return null;
+		}
+
+		SenderCandidates candidates = new SenderCandidates(players, shapes.order());
+		candidates.visit(component);
+		Strategy strategy = candidates.resolve();
+		reportStrategy(strategy, settings, event);
+		if (strategy == null) {
+			shapes.put(fingerprint, new MessageShapes.NoSender(players.version()));
+			return null;
+		}
+		String name = candidates.get(strategy);
+		int node = candidates.nodeOf(strategy);
+		// Only names that are a whole node can be read back. The fingerprint doesn't record
+		// where brackets are inside a text, so a name found in e.g. "<Steve> hi" isn't cached
+		if (strategy != Strategy.BRACKETS || name.equals(readSender(component, strategy, node, players))) {
+			shapes.put(fingerprint, new MessageShapes.Sender(strategy, node));
+		}
+		shapes.recordWin(strategy);
+		return name;
+	}
+
+	/**
+	 * Reports which strategy found the sender, or that there is none.
+	 */
+	private static void reportStrategy(@Nullable Strategy strategy, ConfigSnapshot settings, @Nullable RecolorEvent event) {
+		ChatStats.recordStrategy(settings, strategy);
+		if (event != null && strategy != null) {
+			event.strategy = strategy.name();
+		}
+	}
 
+	enum Strategy {
+		// insertion is set by Minecraft directly on the player name component
+		INSERTION,
+		// click event command usually ends with the player name
+		CLICK_EVENT,
+		// ShowEntity hover carries the UUID which we can match against the player list
+		SHOW_ENTITY,
 		// Last resort: look for <name> bracket pattern in flat text
-		return findByBrackets(component);
+		BRACKETS;
+
+		static final Strategy[] VALUES = values();
 	}
 
-	private static @Nullable String findByInsertion(Component component) {
-		String insertion = component.getStyle().getInsertion();
-		if (insertion != null && !insertion.isBlank() && isPlayerName(insertion)) {
-			return insertion;
+	/**
+	 * Hashes the structure of the tree: the type of each node's contents, the parts of its
+	 * style that the strategies look at, its depth and its number of siblings, in tree order.
+	 * Text is left out, except for what {@link Strategy#BRACKETS} needs to know.
+	 */
+	private static long fingerprint(Component component, int depth, long hash) {
+		Style style = component.getStyle();
+		int bits = depth << 16 | Math.min(component.getSiblings().size(), 0xFF) << 8;
+		if (style.getInsertion() != null) bits |= 1;
+		ClickEvent click = style.getClickEvent();
+		if (click instanceof ClickEvent.SuggestCommand) bits |= 1 << 1;
+		if (click instanceof ClickEvent.RunCommand) bits |= 1 << 2;
+		if (style.getHoverEvent() instanceof HoverEvent.ShowEntity) bits |= 1 << 3;
+		if (style.getColor() != null) bits |= 1 << 4;
+		if (component.getContents() instanceof PlainTextContents plain) {
+			String text = plain.text();
+			if (text.isEmpty()) bits |= 1 << 5;
+			if (isTrimmedChar(text, '<')) bits |= 1 << 6;
+			if (firstNonWhitespace(text) == '>') bits |= 1 << 7;
 		}
+
+		hash = (hash * 31 + component.getContents().getClass().hashCode()) * 31 + bits;
 		for (Component sibling : component.getSiblings()) {
-			String found = findByInsertion(sibling);
+			hash = fingerprint(sibling, depth + 1, hash);
+		}
+		return hash;
+	}
+
+	/**
+	 * Applies a single strategy to the node at the given position in tree order.
+	 */
+	private static @Nullable String readSender(Component component, Strategy strategy, int node, PlayerRegistry.Snapshot players) {
+		Component target = nodeAt(component, new int[]{node});
+		if (target == null) return null;
+
+		Style style = target.getStyle();
+		learnSender(style, players);
+		return switch (strategy) {
+			case INSERTION -> {
+				String insertion = style.getInsertion();
+				yield insertion != null && !insertion.isBlank() && players.contains(insertion) ? insertion : null;
+			}
+			case CLICK_EVENT -> fromClickEvent(style.getClickEvent(), players);
+			case SHOW_ENTITY -> fromShowEntity(style.getHoverEvent(), players);
+			case BRACKETS -> {
+				// Only the "<", name, ">" split is cached, see extractPlayerName
+				if (!(target.getContents() instanceof PlainTextContents plain)) yield null;
+				String name = plain.text().trim();
+				yield name.isEmpty() ? null : name;
+			}
+		};
+	}
+
+	private static @Nullable Component nodeAt(Component component, int[] remaining) {
+		if (remaining[0]-- == 0) return component;
+		for (Component sibling : component.getSiblings()) {
+			Component found = nodeAt(sibling, remaining);
 			if (found != null) return found;
 		}
 		return null;
 	}
 
-	private static @Nullable String findByClickEvent(Component component) {
-		ClickEvent click = component.getStyle().getClickEvent();
+	private static @Nullable String fromClickEvent(@Nullable ClickEvent click, PlayerRegistry.Snapshot players) {
 		String cmd = null;
 		if (click instanceof ClickEvent.SuggestCommand(String command)) {
 			cmd = command;
@@ -155,111 +315,338 @@ public final class ChatUtil {
 			// Most player-targeting commands end with the player name
 			// e.g. /tell Player, /msg Player, /viewprofile Player
 			String lastToken = cmd.substring(cmd.lastIndexOf(' ') + 1).trim();
-			if (isPlayerName(lastToken)) return lastToken;
-		}
-		for (Component sibling : component.getSiblings()) {
-			String found = findByClickEvent(sibling);
-			if (found != null) return found;
+			if (players.contains(lastToken)) return lastToken;
 		}
 		return null;
 	}
 
-	private static @Nullable String findByShowEntity(Component component) {
-		HoverEvent hover = component.getStyle().getHoverEvent();
+	private static @Nullable String fromShowEntity(@Nullable HoverEvent hover, PlayerRegistry.Snapshot players) {
 		if (hover instanceof HoverEvent.ShowEntity(HoverEvent.EntityTooltipInfo info)) {
 			// Try display name first
 			if (info.name.isPresent()) {
 				String name = info.name.get().getString();
-				if (isPlayerName(name)) return name;
+				if (players.contains(name)) return name;
 			}
 			// Fall back to UUID lookup against the player list
-			ClientLevel level = MINECRAFT.level;
-			if (level != null) {
-				for (AbstractClientPlayer player : level.players()) {
-					if (player.nameAndId().id().equals(info.uuid)) {
-						return player.nameAndId().name();
-					}
+			return players.getName(info.uuid);
+		}
+		return null;
+	}
+
+	/**
+	 * Collects the first candidate of every {@link Strategy} in tree order while visiting
+	 * each node exactly once, then resolves them by priority. The walk stops as soon as the
+	 * highest priority strategy has a candidate.
+	 */
+	private static final class SenderCandidates implements FormattedText.ContentConsumer<Object> {
+
+		private final PlayerRegistry.Snapshot players;
+		private final Strategy[] order;
+		private final @Nullable String[] found = new String[Strategy.VALUES.length];
+		// Position in tree order of the node each candidate was found on
+		private final int[] foundAt = new int[Strategy.VALUES.length];
+
+		private int node = -1;
+
+		// Finds <name> for listed players anywhere in the flattened text
+		private final NameMatcher.Scanner scanner;
+
+		// The last two non-empty texts seen, in flattened order, for the "<", name, ">" split
+		private @Nullable String beforeLastText;
+		private @Nullable String lastText;
+		private int lastTextNode;
+
+		SenderCandidates(PlayerRegistry.Snapshot players, Strategy[] order) {
+			this.players = players;
+			this.order = order;
+			this.scanner = new NameMatcher.Scanner(players.names());
+		}
+
+		@Nullable Strategy resolve() {
+			for (Strategy strategy : order) {
+				if (found[strategy.ordinal()] != null) return strategy;
+			}
+			return null;
+		}
+
+		@Nullable String get(Strategy strategy) {
+			return found[strategy.ordinal()];
+		}
+
+		int nodeOf(Strategy strategy) {
+			return foundAt[strategy.ordinal()];
+		}
+
+		/**
+		 * @return true once the highest priority candidate is known and the walk can stop
+		 */
+		boolean visit(Component component) {
+			node++;
+			Style style = component.getStyle();
+
+			if (found[Strategy.INSERTION.ordinal()] == null) {
+				String insertion = style.getInsertion();
+				if (insertion != null && !insertion.isBlank() && players.contains(insertion)) {
+					found(Strategy.INSERTION, insertion, node);
 				}
 			}
+
+			if (found[Strategy.CLICK_EVENT.ordinal()] == null) {
+				found(Strategy.CLICK_EVENT, fromClickEvent(style.getClickEvent(), players), node);
+			}
+
+			if (found[Strategy.SHOW_ENTITY.ordinal()] == null) {
+				found(Strategy.SHOW_ENTITY, fromShowEntity(style.getHoverEvent(), players), node);
+			}
+			learnSender(style, players);
+
+			if (found[Strategy.BRACKETS.ordinal()] == null) {
+				component.getContents().visit(this);
+			}
+
+			if (found[order[0].ordinal()] != null) return true;
+
+			for (Component sibling : component.getSiblings()) {
+				if (visit(sibling)) return true;
+			}
+			return false;
 		}
-		for (Component sibling : component.getSiblings()) {
-			String found = findByShowEntity(sibling);
-			if (found != null) return found;
+
+		private void found(Strategy strategy, @Nullable String candidate, int at) {
+			if (candidate == null) return;
+			found[strategy.ordinal()] = candidate;
+			foundAt[strategy.ordinal()] = at;
 		}
-		return null;
-	}
 
-	private static @Nullable String findByBrackets(Component component) {
-		List<Component> flat = component.toFlatList();
-		for (int i = 0; i < flat.size() - 2; i++) {
-			String current = flat.get(i).getString().trim();
-			String next = flat.get(i + 1).getString().trim();
-			if (current.equals("<") && !next.isEmpty()
-					&& flat.get(i + 2).getString().trim().startsWith(">")) {
-				return next;
+		/**
+		 * Receives the contents of each node in flattened order. Looks for a listed player's
+		 * {@code <name>} anywhere in the text, then falls back to the same
+		 * {@code "<", name, ">..."} split as trimming each text would, without copying it.
+		 */
+		@Override
+		public Optional<Object> accept(String text) {
+			if (text.isEmpty()) return Optional.empty();
+
+			for (int i = 0; i < text.length(); i++) {
+				String name = scanner.next(text.charAt(i), node);
+				if (name != null && found[Strategy.BRACKETS.ordinal()] == null) {
+					found(Strategy.BRACKETS, name, scanner.confirmedTag());
+				}
 			}
+
+			if (found[Strategy.BRACKETS.ordinal()] == null
+					&& beforeLastText != null && lastText != null
+					&& isTrimmedChar(beforeLastText, '<')
+					&& firstNonWhitespace(text) == '>') {
+				String name = lastText.trim();
+				if (!name.isEmpty()) {
+					found(Strategy.BRACKETS, name, lastTextNode);
+				}
+			}
+
+			beforeLastText = lastText;
+			lastText = text;
+			lastTextNode = node;
+			return Optional.empty();
 		}
-		return null;
+	}
+
+	private static boolean isTrimmedChar(String text, char c) {
+		int start = firstNonWhitespaceIndex(text);
+		if (start == text.length() || text.charAt(start) != c) return false;
+		for (int i = start + 1; i < text.length(); i++) {
+			if (text.charAt(i) > ' ') return false;
+		}
+		return true;
+	}
+
+	private static char firstNonWhitespace(String text) {
+		int i = firstNonWhitespaceIndex(text);
+		return i == text.length() ? 0 : text.charAt(i);
 	}
 
 	/**
-	 * Returns true if the given string matches a currently online player's name.
+	 * Same as {@code text.trim().equals(value)}, without copying the text.
 	 */
-	private static boolean isPlayerName(String name) {
-		ClientLevel level = MINECRAFT.level;
-		if (level != null) {
-			for (AbstractClientPlayer player : level.players()) {
-				if (player.nameAndId().name().equals(name)) {
-					return true;
-				}
-			}
-		}
-		return false;
+	private static boolean isTrimmed(String text, String value) {
+		int start = firstNonWhitespaceIndex(text);
+		int end = text.length();
+		while (end > start && text.charAt(end - 1) <= ' ') end--;
+		return end - start == value.length() && text.regionMatches(start, value, 0, value.length());
 	}
 
-	private static MutableComponent reconstructWithColor(Component component, TextColor color, String playerName) {
-		List<Component> flat = component.toFlatList();
+	/**
+	 * Uses the same definition of whitespace as {@link String#trim()}.
+	 */
+	private static int firstNonWhitespaceIndex(String text) {
+		int i = 0;
+		while (i < text.length() && text.charAt(i) <= ' ') i++;
+		return i;
+	}
+
+	private static MutableComponent reconstructWithColor(
+			Component component,
+			TextColor color,
+			String playerName,
+			PlayerRegistry.Snapshot players,
+			ConfigSnapshot settings
+	) {
 		MutableComponent result = Component.empty().withStyle(component.getStyle());
+		List<Component> parts = result.getSiblings();
+		if (parts instanceof ArrayList<Component> list) {
+			// At most one part per node, unless mentions split a run
+			list.ensureCapacity(countNodes(component));
+		}
 
-		for (Component part : flat) {
-			Style style = part.getStyle();
-			String raw = part.getString();
-			String trimmed = raw.trim();
-
-			boolean isBracket = trimmed.equals("<") || trimmed.equals(">");
-			boolean isName = !isBracket && (playerName.equals(style.getInsertion()) || trimmed.equals(playerName));
-			boolean isTimestamp = Platform.INSTANCE.isModLoaded("chatpatches")
-					&& style.getClickEvent() instanceof ClickEvent.SuggestCommand(String command)
-					&& command.matches("\\d{2}/\\d{2}/\\d{4}");
-			boolean shouldApply = shouldApplyColor(style);
-
-			if (isTimestamp) {
-				// Always preserve ChatPatches timestamp as-is
-				result.append(part);
-			} else if (isName && !ChatColors.CONFIG.colorPlayerNames) {
+		Reconstruction reconstruction = new Reconstruction(color, playerName, players, settings, parts);
+		component.visit(reconstruction, Style.EMPTY);
+		reconstruction.finish();
+		return result;
+	}
+
+	private static int countNodes(Component component) {
+		int count = 1;
+		for (Component sibling : component.getSiblings()) {
+			count += countNodes(sibling);
+		}
+		return count;
+	}
+
+	/**
+	 * Streams over the runs of text of the tree, each with its resolved style, and writes
+	 * them out with their new style into the given list of parts. Runs are classified without
+	 * copying their text, and adjacent runs that end up with the same style are merged into
+	 * one part.
+	 */
+	private static final class Reconstruction implements FormattedText.StyledContentConsumer<Object> {
+
+		private final TextColor color;
+		private final String playerName;
+		private final PlayerRegistry.Snapshot players;
+		private final ConfigSnapshot settings;
+		private final List<Component> parts;
+		private final IntList mentions = new IntArrayList();
+
+		// The last run, held back in case the next one has the same style
+		private @Nullable Style pendingStyle;
+		private String pendingText = "";
+		private final StringBuilder merged = new StringBuilder();
+
+		Reconstruction(TextColor color, String playerName, PlayerRegistry.Snapshot players, ConfigSnapshot settings, List<Component> parts) {
+			this.color = color;
+			this.playerName = playerName;
+			this.players = players;
+			this.settings = settings;
+			this.parts = parts;
+		}
+
+		@Override
+		public Optional<Object> accept(Style style, String text) {
+			if (text.isEmpty()) return Optional.empty();
+
+			boolean isBracket = isTrimmedChar(text, '<') || isTrimmedChar(text, '>');
+			boolean isName = !isBracket && (playerName.equals(style.getInsertion()) || isTrimmed(text, playerName));
+
+			if (settings.preserveRules().matches(style, text)) {
+				// Always preserve parts matched by a rule, e.g. ChatPatches timestamps, as-is
+				emit(text, style);
+			} else if (isName && !settings.colorPlayerNames()) {
 				// Respect colorPlayerNames config — skip coloring the name itself
-				result.append(part);
+				emit(text, style);
 			} else if (isBracket) {
 				// Always color brackets
-				result.append(Component.literal(raw).withStyle(style.withColor(color)));
-			} else if (isName || shouldApply) {
-				// Color the name and any uncolored (or override-all) parts
-				result.append(part.copy().withStyle(style.withColor(color)));
+				emit(text, style.withColor(color));
 			} else {
-				// Leave intentionally colored parts alone
-				result.append(part);
+				boolean shouldApply = shouldApplyColor(style, settings);
+				if (settings.colorMentions() && !isName && emitMentions(text, style, shouldApply ? color : null)) {
+					// Other players mentioned in the part were colored with their own colors
+				} else if (isName || shouldApply) {
+					// Color the name and any uncolored (or override-all) parts
+					emit(text, style.withColor(color));
+				} else {
+					// Leave intentionally colored parts alone
+					emit(text, style);
+				}
 			}
+			return Optional.empty();
 		}
 
-		return result;
+		/**
+		 * Emits the run split around the names of the players it mentions, each colored with
+		 * that player's color, and the rest with the given color if any.
+		 *
+		 * @return false if the run mentions nobody, in which case nothing was emitted
+		 */
+		private boolean emitMentions(String text, Style style, @Nullable TextColor restColor) {
+			if (!settings.colorPlayerNames()) return false;
+
+			mentions.clear();
+			players.names().findAll(text, mentions);
+			if (mentions.isEmpty()) return false;
+
+			Style rest = restColor == null ? style : style.withColor(restColor);
+			int end = 0;
+			for (int i = 0; i < mentions.size(); i += 2) {
+				int start = mentions.getInt(i);
+				if (start > end) {
+					emit(text.substring(end, start), rest);
+				}
+				end = mentions.getInt(i + 1);
+				String name = text.substring(start, end);
+				boolean skip = !settings.colorSelf() && players.isLocalPlayer(name);
+				emit(name, skip ? rest : style.withColor(ColorCache.get(settings, name, idOf(name, players, settings))));
+			}
+			if (end < text.length()) {
+				emit(text.substring(end), rest);
+			}
+			return true;
+		}
+
+		private void emit(String text, Style style) {
+			if (style.equals(pendingStyle)) {
+				if (merged.isEmpty()) merged.append(pendingText);
+				merged.append(text);
+				return;
+			}
+			flush();
+			pendingStyle = style;
+			pendingText = text;
+		}
+
+		private void flush() {
+			if (pendingStyle == null) return;
+			String text = merged.isEmpty() ? pendingText : merged.toString();
+			merged.setLength(0);
+			parts.add(Component.literal(text).setStyle(pendingStyle));
+		}
+
+		void finish() {
+			flush();
+		}
+	}
+
+	/**
+	 * Per-style version of the rules in {@link #reconstructWithColor}, for lines that are
+	 * colored as they are rendered. The text of each part isn't known there, so the name is
+	 * only recognized by its insertion, brackets keep their own color, and text preserve rules
+	 * never match.
+	 */
+	static Style recolorStyle(Style style, Sender sender) {
+		ConfigSnapshot settings = sender.settings();
+		if (settings.preserveRules().matches(style, null)) return style;
+
+		boolean isName = sender.name().equals(style.getInsertion());
+		if (isName && !settings.colorPlayerNames()) return style;
+		if (isName || shouldApplyColor(style, settings)) return style.withColor(sender.color());
+		return style;
 	}
 
 	/**
 	 * Returns true if the player color should be applied to this component,
 	 * i.e. it has no color, has the default white color, or overrideAllColor is enabled.
 	 */
-	private static boolean shouldApplyColor(Style style) {
-		if (ChatColors.CONFIG.overrideAllColor) return true;
+	private static boolean shouldApplyColor(Style style, ConfigSnapshot settings) {
+		if (settings.overrideAllColor()) return true;
 		TextColor color = style.getColor();
 		if (color == null) return true;
 		return color.getValue() == 0xFFFFFF;
@@ -275,20 +662,33 @@ public final class ChatUtil {
 		return color.getValue() != 0xFFFFFF;
 	}
 
-	private static MutableComponent applyColorToEmpty(Component component, @Nullable TextColor color, boolean parentHasColor) {
-		MutableComponent result = component.plainCopy();
-		boolean thisHasColor = hasSignificantColor(component.getStyle());
+	/**
+	 * Colors every part of the tree that has no significant color of its own or from a parent.
+	 * Copy-on-write: unchanged subtrees are shared, and the original instance is returned if
+	 * nothing changes.
+	 */
+	private static Component applyColorToEmpty(Component component, @Nullable TextColor color, boolean parentHasColor) {
+		if (color == null) return component;
 
-		if (color != null && !thisHasColor && !parentHasColor) {
-			result.withStyle(component.getStyle().withColor(color));
-		} else {
-			result.withStyle(component.getStyle());
+		boolean thisHasColor = hasSignificantColor(component.getStyle());
+		boolean recolor = !thisHasColor && !parentHasColor;
+
+		List<Component> siblings = component.getSiblings();
+		List<Component> newSiblings = null;
+		for (int i = 0; i < siblings.size(); i++) {
+			Component sibling = siblings.get(i);
+			Component colored = applyColorToEmpty(sibling, color, parentHasColor || thisHasColor);
+			if (colored != sibling) {
+				if (newSiblings == null) newSiblings = new ArrayList<>(siblings);
+				newSiblings.set(i, colored);
+			}
 		}
 
-		for (Component sibling : component.getSiblings()) {
-			result.append(applyColorToEmpty(sibling, color, parentHasColor || thisHasColor));
-		}
+		if (!recolor && newSiblings == null) return component;
 
+		MutableComponent result = component.plainCopy();
+		result.withStyle(recolor ? component.getStyle().withColor(color) : component.getStyle());
+		result.getSiblings().addAll(newSiblings != null ? newSiblings : siblings);
 		return result;
 	}
 }
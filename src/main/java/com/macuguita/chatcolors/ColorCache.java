@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.UUID;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.network.chat.TextColor;
+
+/**
+ * Memoizes the resolved {@link TextColor} of each sender.
+ * <p>
+ * Both hue functions only depend on the hash code of their input, so the hash code is
+ * used directly as the key. The cache is dropped whenever the colors would change with the settings.
+ * <p>
+ * Accessed from both the main thread and the {@link ChatPipeline} worker.
+ */
+public final class ColorCache {
+
+	private ColorCache() {}
+
+	private static final Int2ObjectMap<TextColor> BY_ID = new Int2ObjectOpenHashMap<>();
+	private static final Int2ObjectMap<TextColor> BY_NAME = new Int2ObjectOpenHashMap<>();
+
+	// The settings the cached colors were resolved with
+	private static @Nullable ConfigSnapshot resolvedWith;
+
+	public static synchronized TextColor get(ConfigSnapshot settings, String name, @Nullable UUID id) {
+		validate(settings);
+
+		if (settings.spreadHues() && id != null) {
+			TextColor color = HueAllocator.get(id);
+			if (color != null) return color;
+		}
+
+		if (settings.useLocatorBarColors() && id != null) {
+			int key = id.hashCode();
+			TextColor color = BY_ID.get(key);
+			if (color == null) {
+				color = PlayerHues.hueToColor(PlayerHues.UUIDToHue(id));
+				BY_ID.put(key, color);
+			}
+			return color;
+		}
+
+		int key = name.hashCode();
+		TextColor color = BY_NAME.get(key);
+		if (color == null) {
+			color = PlayerHues.hueToColor(PlayerHues.nameToHue(name));
+			BY_NAME.put(key, color);
+		}
+		return color;
+	}
+
+	/**
+	 * Drops the entries of a player that left.
+	 */
+	public static synchronized void evict(UUID id, String name) {
+		BY_ID.remove(id.hashCode());
+		BY_NAME.remove(name.hashCode());
+	}
+
+	public static synchronized void clear() {
+		BY_ID.clear();
+		BY_NAME.clear();
+	}
+
+	private static void validate(ConfigSnapshot current) {
+		if (resolvedWith != current) {
+			if (resolvedWith == null || !resolvedWith.sameColors(current)) clear();
+			resolvedWith = current;
+		}
+	}
+}
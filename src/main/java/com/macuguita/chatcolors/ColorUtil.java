@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+/**
+ * HSV conversions on packed {@code ARGB} ints that don't go through {@code java.awt.Color}.
+ * <p>
+ * The arithmetic mirrors {@code Color.RGBtoHSB} and {@code Color.HSBtoRGB} step by step,
+ * so the results are bit-identical to the AWT ones, but nothing is allocated.
+ */
+public final class ColorUtil {
+
+	private ColorUtil() {}
+
+	/**
+	 * @param argb a packed color, the alpha channel is ignored
+	 * @return hue in the range {@code 0.0f <= hue < 1.0f}
+	 */
+	public static float hue(int argb) {
+		int r = (argb >> 16) & 0xFF;
+		int g = (argb >> 8) & 0xFF;
+		int b = argb & 0xFF;
+
+		int cmax = Math.max(Math.max(r, g), b);
+		int cmin = Math.min(Math.min(r, g), b);
+		if (cmax == cmin) return 0.0f;
+
+		float range = (float) (cmax - cmin);
+		float redc = ((float) (cmax - r)) / range;
+		float greenc = ((float) (cmax - g)) / range;
+		float bluec = ((float) (cmax - b)) / range;
+
+		float hue;
+		if (r == cmax) {
+			hue = bluec - greenc;
+		} else if (g == cmax) {
+			hue = 2.0f + redc - bluec;
+		} else {
+			hue = 4.0f + greenc - redc;
+		}
+		hue = hue / 6.0f;
+		if (hue < 0) hue = hue + 1.0f;
+		return hue;
+	}
+
+	/**
+	 * @return the packed opaque color for the given hue, saturation and value
+	 */
+	public static int hsvToArgb(float hue, float saturation, float value) {
+		int r = 0, g = 0, b = 0;
+		if (saturation == 0) {
+			r = g = b = toChannel(value);
+		} else {
+			float h = (hue - (float) Math.floor(hue)) * 6.0f;
+			float f = h - (float) Math.floor(h);
+			float p = value * (1.0f - saturation);
+			float q = value * (1.0f - saturation * f);
+			float t = value * (1.0f - (saturation * (1.0f - f)));
+			switch ((int) h) {
+				case 0 -> {
+					r = toChannel(value);
+					g = toChannel(t);
+					b = toChannel(p);
+				}
+				case 1 -> {
+					r = toChannel(q);
+					g = toChannel(value);
+					b = toChannel(p);
+				}
+				case 2 -> {
+					r = toChannel(p);
+					g = toChannel(value);
+					b = toChannel(t);
+				}
+				case 3 -> {
+					r = toChannel(p);
+					g = toChannel(q);
+					b = toChannel(value);
+				}
+				case 4 -> {
+					r = toChannel(t);
+					g = toChannel(p);
+					b = toChannel(value);
+				}
+				case 5 -> {
+					r = toChannel(value);
+					g = toChannel(p);
+					b = toChannel(q);
+				}
+				default -> {
+				}
+			}
+		}
+		return 0xFF000000 | (r << 16) | (g << 8) | b;
+	}
+
+	private static int toChannel(float component) {
+		return (int) (component * 255.0f + 0.5f);
+	}
+}
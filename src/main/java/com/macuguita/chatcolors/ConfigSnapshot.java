@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+/**
+ * An immutable copy of {@link ChatColors.Config}, together with the loader and compat
+ * probes, compiled once per load of the config.
+ * <p>
+ * The hot path reads the current one through {@link ChatColors#settings()} rather than the
+ * mutable config, so it never sees an option change halfway through a message.
+ */
+public record ConfigSnapshot(
+		boolean enableMod,
+		boolean colorPlayerNames,
+		boolean useLocatorBarColors,
+		boolean spreadHues,
+		boolean rememberPlayers,
+		boolean colorSelf,
+		boolean overrideAllColor,
+		boolean recolorOnPacketReceipt,
+		boolean colorWhileRendering,
+		boolean colorMentions,
+		boolean colorOnServer,
+		int recolorBudgetMicros,
+		boolean recordChatCorpus,
+		boolean warmUp,
+		boolean collectStats,
+		boolean showStatsOverlay,
+		boolean chatPatchesLoaded,
+		PreserveRules preserveRules
+) {
+
+	public static ConfigSnapshot compile(ChatColors.Config config) {
+		boolean chatPatchesLoaded = Platform.INSTANCE.isModLoaded("chatpatches");
+		return new ConfigSnapshot(
+				config.enableMod,
+				config.colorPlayerNames,
+				config.useLocatorBarColors,
+				config.spreadHues,
+				config.rememberPlayers,
+				config.colorSelf,
+				config.overrideAllColor,
+				config.recolorOnPacketReceipt,
+				config.colorWhileRendering,
+				config.colorMentions,
+				config.colorOnServer,
+				config.recolorBudgetMicros,
+				config.recordChatCorpus,
+				config.warmUp,
+				config.collectStats,
+				config.showStatsOverlay,
+				chatPatchesLoaded,
+				PreserveRules.compile(config.preserveRules, chatPatchesLoaded)
+		);
+	}
+
+	/**
+	 * Whether messages are recolored as they are added to the chat.
+	 */
+	public boolean recolorsMessages() {
+		return enableMod && !colorWhileRendering;
+	}
+
+	/**
+	 * Whether messages are only colored while their lines are rendered.
+	 */
+	public boolean colorsLines() {
+		return enableMod && colorWhileRendering;
+	}
+
+	/**
+	 * @return true if a message would be colored the same under both snapshots
+	 */
+	public boolean sameColors(ConfigSnapshot other) {
+		return enableMod == other.enableMod
+				&& colorPlayerNames == other.colorPlayerNames
+				&& useLocatorBarColors == other.useLocatorBarColors
+				&& spreadHues == other.spreadHues
+				&& rememberPlayers == other.rememberPlayers
+				&& colorSelf == other.colorSelf
+				&& overrideAllColor == other.overrideAllColor
+				&& colorWhileRendering == other.colorWhileRendering
+				&& colorMentions == other.colorMentions
+				&& chatPatchesLoaded == other.chatPatchesLoaded
+				&& preserveRules.equals(other.preserveRules);
+	}
+}
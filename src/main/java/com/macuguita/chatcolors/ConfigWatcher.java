@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Reloads the config whenever its file changes, so edits apply without restarting.
+ * <p>
+ * The reload happens on the watcher's own thread. Readers only ever see a complete
+ * {@link ConfigSnapshot}, see {@link ChatColors#settings()}.
+ */
+public final class ConfigWatcher {
+
+	private ConfigWatcher() {}
+
+	private static final String FILE_NAME = ChatColors.MOD_ID + ".toml";
+	// Editors often write a file in several steps, wait for them to finish
+	private static final long SETTLE_MILLIS = 100;
+
+	// Modification time of the file as last loaded, only touched by the watcher thread
+	private static @Nullable FileTime loaded;
+
+	public static void start() {
+		Path directory = Platform.INSTANCE.getConfigDir();
+		Path file = directory.resolve(FILE_NAME);
+		loaded = lastModified(file);
+
+		Thread thread = new Thread(() -> watch(directory, file), "ChatColors Config Watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static void watch(Path directory, Path file) {
+		try (WatchService watcher = directory.getFileSystem().newWatchService()) {
+			directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			while (true) {
+				WatchKey key = watcher.take();
+				boolean changed = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.context() instanceof Path path && path.toString().equals(FILE_NAME)) {
+						changed = true;
+					}
+				}
+				if (!key.reset()) return;
+
+				if (changed) {
+					Thread.sleep(SETTLE_MILLIS);
+					reload(file);
+				}
+			}
+		} catch (IOException e) {
+			ChatColors.LOGGER.error("Failed to watch the config file, it will not be reloaded", e);
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void reload(Path file) {
+		FileTime modified = lastModified(file);
+		if (modified == null || modified.equals(loaded)) return;
+
+		try {
+			ChatColors.reload();
+		} catch (RuntimeException e) {
+			ChatColors.LOGGER.error("Failed to reload the config", e);
+		}
+		// Loading may write the file back, which must not trigger another reload
+		loaded = lastModified(file);
+	}
+
+	private static @Nullable FileTime lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.client.GuiMessage;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.components.ChatComponent;
+import net.minecraft.network.chat.Component;
+
+/**
+ * Recolors the messages already in the chat after something changed their colors: the
+ * config, or players joining whose UUID wasn't known when their messages arrived.
+ * <p>
+ * A config change restarts a full pass right away. Joins are batched instead: once they
+ * settle, a pass only recolors the messages that mention one of the joined names. Joins
+ * during a pass wait for the next one, so busy lobbies can't keep restarting it.
+ * <p>
+ * The pass goes newest first and is spread over ticks, spending at most
+ * {@link #SLICE_NANOS} per tick, so even the long histories kept by chat mods don't
+ * cause a hitch. Messages are recolored from the original they were made from, see
+ * {@link ChatHistory#original}.
+ * <p>
+ * Only used on the main thread.
+ */
+public final class HistoryRecolor {
+
+	private HistoryRecolor() {}
+
+	private static final long SLICE_NANOS = 1_000_000;
+	// A batch of joins starts its pass after this many ticks without joins, or this many
+	// ticks after the first join at the latest
+	private static final int JOIN_QUIET_TICKS = 10;
+	private static final int JOIN_MAX_DELAY_TICKS = 100;
+
+	// Index of the next message to recolor, or -1 when there is no pass running
+	private static int cursor = -1;
+	// Index of that message's first line, or -1 if it has none. Only found again by
+	// scanning the lines after new messages were added in front of it
+	private static int lineCursor = -1;
+	private static boolean lineCursorKnown;
+
+	private static @Nullable ConfigSnapshot settings;
+
+	// Only messages mentioning one of these names are recolored, or all if null
+	private static @Nullable NameMatcher filter;
+	private static final IntList MATCHES = new IntArrayList();
+
+	// Names joined since the running pass started, waiting for the next one
+	private static final Set<String> JOINED = new HashSet<>();
+	private static int quietTicks;
+	private static int waitingTicks;
+
+	/**
+	 * Starts a new pass over every message from the newest one.
+	 */
+	public static void restart() {
+		start(null);
+		// The full pass covers the names that were waiting
+		JOINED.clear();
+	}
+
+	/**
+	 * Called when players joined, whose messages may need new colors.
+	 */
+	public static void onPlayersJoined(Collection<String> names) {
+		if (JOINED.isEmpty()) waitingTicks = 0;
+		JOINED.addAll(names);
+		quietTicks = 0;
+	}
+
+	private static void start(@Nullable NameMatcher names) {
+		filter = names;
+		cursor = 0;
+		lineCursorKnown = false;
+	}
+
+	/**
+	 * Called for each message added to the chat, which moves the older ones down by one.
+	 */
+	public static void onMessageAdded() {
+		if (cursor >= 0) cursor++;
+		lineCursorKnown = false;
+	}
+
+	/**
+	 * Called when the lines of messages outside of the pass changed, moving those of the
+	 * message the pass is at.
+	 */
+	public static void onLinesMoved() {
+		lineCursorKnown = false;
+	}
+
+	public static void tick() {
+		ConfigSnapshot current = ChatColors.settings();
+		if (settings != current) {
+			// Nothing to recolor the first time around
+			if (settings != null && !settings.sameColors(current)) restart();
+			settings = current;
+		}
+		if (cursor < 0 && !JOINED.isEmpty()
+				&& (++quietTicks >= JOIN_QUIET_TICKS || ++waitingTicks >= JOIN_MAX_DELAY_TICKS)) {
+			start(NameMatcher.of(JOINED));
+			JOINED.clear();
+		}
+		if (cursor < 0) return;
+
+		ChatComponent chat = Minecraft.getInstance().gui.getChat();
+		List<GuiMessage> messages = ChatHistory.messages(chat);
+		long start = System.nanoTime();
+		if (!lineCursorKnown) {
+			lineCursor = ChatHistory.linesStart(chat, cursor);
+			lineCursorKnown = true;
+		}
+		while (cursor < messages.size()) {
+			recolor(chat, cursor, lineCursor, messages.get(cursor), current);
+			cursor++;
+			lineCursor = ChatHistory.nextLinesStart(chat, lineCursor);
+			if (System.nanoTime() - start >= SLICE_NANOS) return;
+		}
+		cursor = -1;
+	}
+
+	private static void recolor(ChatComponent chat, int index, int linesStart, GuiMessage message, ConfigSnapshot settings) {
+		Component shown = message.content();
+		Component original = ChatHistory.original(shown);
+		if (filter != null) {
+			MATCHES.clear();
+			filter.findAll(original.getString(), MATCHES);
+			if (MATCHES.isEmpty()) return;
+		}
+
+		Component recolored = settings.recolorsMessages() ? ChatUtil.applyPlayerColor(original) : original;
+		ChatHistory.remember(recolored, original);
+
+		// Rendering mode colors while rewrapping, so the lines are always rebuilt there
+		if (settings.colorsLines() || !recolored.equals(shown)) {
+			ChatHistory.replace(chat, index, recolored, linesStart);
+		}
+	}
+}
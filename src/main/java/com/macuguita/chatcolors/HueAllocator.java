@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.network.chat.TextColor;
+
+/**
+ * Gives the players on the player list hues that are spread as evenly as possible around
+ * the wheel, instead of deriving them from a hash that collides in large lobbies.
+ * <p>
+ * Each joining player gets the middle of the widest gap between the assigned hues, and a
+ * leaving player's gap is merged with the next one. The gaps are kept ordered by width, so
+ * both cost O(log n). A player keeps their hue when they leave and join again: it stays
+ * reserved, so no one else gets it in the meantime. To keep the hues of the players on the
+ * list spread, at most as many reservations as there are such players (and at least
+ * {@link #MIN_RESERVED}) are kept, the oldest are released first.
+ * <p>
+ * Assignments happen on the main thread, {@link #get} can be called from any thread.
+ */
+public final class HueAllocator {
+
+	private HueAllocator() {}
+
+	private record Gap(double start, double length) {}
+
+	private static final Comparator<Gap> WIDEST_FIRST = Comparator.comparingDouble(Gap::length).reversed()
+			.thenComparingDouble(Gap::start);
+
+	private static final int MIN_RESERVED = 64;
+
+	// Hues of the players currently on the list or reserved for those that left, and the gap
+	// following each of them
+	private static final NavigableMap<Double, UUID> ASSIGNED = new TreeMap<>();
+	private static final NavigableSet<Gap> GAPS = new TreeSet<>(WIDEST_FIRST);
+	private static final Map<Double, Gap> GAP_FROM = new HashMap<>();
+
+	// The hue of every player in ASSIGNED
+	private static final Map<UUID, Double> SESSION = new HashMap<>();
+	// Players that left while their hue is still reserved, oldest first
+	private static final Set<UUID> DEPARTED = new LinkedHashSet<>();
+	private static final Map<UUID, TextColor> COLORS = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the color of this player's hue, or null if they aren't on the list and their hue
+	 * is no longer reserved
+	 */
+	public static @Nullable TextColor get(UUID id) {
+		return COLORS.get(id);
+	}
+
+	public static void join(UUID id) {
+		Double reserved = SESSION.get(id);
+		if (reserved != null) {
+			// Still on the list, or coming back to their reserved hue
+			DEPARTED.remove(id);
+			return;
+		}
+
+		double hue = nextHue(id);
+		if (ASSIGNED.isEmpty()) {
+			addGap(new Gap(hue, 1.0));
+		} else {
+			Gap gap = GAP_FROM.get(previous(hue));
+			removeGap(gap);
+			double before = distance(gap.start, hue);
+			addGap(new Gap(gap.start, before));
+			addGap(new Gap(hue, gap.length - before));
+		}
+		ASSIGNED.put(hue, id);
+		SESSION.put(id, hue);
+		COLORS.put(id, PerceptualHues.color(hue));
+	}
+
+	public static void leave(UUID id) {
+		if (!SESSION.containsKey(id) || !DEPARTED.add(id)) return;
+
+		int present = ASSIGNED.size() - DEPARTED.size();
+		Iterator<UUID> oldest = DEPARTED.iterator();
+		while (DEPARTED.size() > Math.max(MIN_RESERVED, present)) {
+			UUID released = oldest.next();
+			oldest.remove();
+			release(released);
+		}
+	}
+
+	/**
+	 * Gives up the hue of a player that left, merging the gaps around it.
+	 */
+	private static void release(UUID id) {
+		double hue = SESSION.remove(id);
+		ASSIGNED.remove(hue);
+		// The hue may go to someone else, who must be the only one to get its color
+		COLORS.remove(id);
+
+		if (ASSIGNED.isEmpty()) {
+			GAPS.clear();
+			GAP_FROM.clear();
+			return;
+		}
+		Gap before = GAP_FROM.get(previous(hue));
+		Gap after = GAP_FROM.get(hue);
+		removeGap(before);
+		removeGap(after);
+		addGap(new Gap(before.start, before.length + after.length));
+	}
+
+	/**
+	 * Forgets every assignment, when joining another server.
+	 */
+	public static void reset() {
+		ASSIGNED.clear();
+		GAPS.clear();
+		GAP_FROM.clear();
+		SESSION.clear();
+		DEPARTED.clear();
+		COLORS.clear();
+	}
+
+	private static double nextHue(UUID id) {
+		if (GAPS.isEmpty()) return PlayerHues.UUIDToHue(id);
+		Gap widest = GAPS.first();
+		double hue = widest.start + widest.length / 2;
+		return hue >= 1.0 ? hue - 1.0 : hue;
+	}
+
+	/**
+	 * @return the closest assigned hue before the given one, going around the wheel
+	 */
+	private static double previous(double hue) {
+		Double lower = ASSIGNED.lowerKey(hue);
+		return lower != null ? lower : ASSIGNED.lastKey();
+	}
+
+	private static double distance(double from, double to) {
+		double distance = to - from;
+		return distance < 0 ? distance + 1.0 : distance;
+	}
+
+	private static void addGap(Gap gap) {
+		GAPS.add(gap);
+		GAP_FROM.put(gap.start, gap);
+	}
+
+	private static void removeGap(Gap gap) {
+		GAPS.remove(gap);
+		GAP_FROM.remove(gap.start);
+	}
+}
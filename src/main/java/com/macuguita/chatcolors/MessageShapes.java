@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Remembers, per server, where the sender was found in each message shape, see
+ * {@link ChatUtil#extractPlayerName}. Most servers format every chat line the same way, so
+ * after the first message of a kind the sender can be read straight from its node.
+ * <p>
+ * Also counts how often each strategy finds the sender on the server, and tries them in
+ * that order when a shape isn't known yet.
+ */
+public final class MessageShapes {
+
+	private static final int MAX_SHAPES = 1024;
+	private static final int MAX_SERVERS = 16;
+
+	// Only touched on the main thread, least recently entered first
+	private static final Map<String, MessageShapes> BY_SERVER = new LinkedHashMap<>(MAX_SERVERS, 0.75F, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, MessageShapes> eldest) {
+			return size() > MAX_SERVERS;
+		}
+	};
+	private static volatile @Nullable MessageShapes current;
+
+	private final Map<Long, Shape> shapes = new ConcurrentHashMap<>();
+	private final LongAdder[] wins = new LongAdder[ChatUtil.Strategy.VALUES.length];
+
+	private MessageShapes() {
+		Arrays.setAll(wins, i -> new LongAdder());
+	}
+
+	/**
+	 * Switches to the shapes learned on the given server, keeping those of the last few
+	 * servers for when the player comes back to them.
+	 */
+	public static void enterServer(String address) {
+		current = BY_SERVER.computeIfAbsent(address, key -> new MessageShapes());
+	}
+
+	public static void leaveServer() {
+		current = null;
+	}
+
+	/**
+	 * @return the shapes of the server being played on, or null when not on a server
+	 */
+	static @Nullable MessageShapes current() {
+		return current;
+	}
+
+	sealed interface Shape permits Sender, NoSender {}
+
+	/**
+	 * The sender is found by {@code strategy} on the {@code node}th node in tree order.
+	 */
+	record Sender(ChatUtil.Strategy strategy, int node) implements Shape {}
+
+	/**
+	 * No sender could be found with the player list of the given {@link PlayerRegistry.Snapshot#version()}.
+	 */
+	record NoSender(long version) implements Shape {}
+
+	@Nullable Shape get(long fingerprint) {
+		return shapes.get(fingerprint);
+	}
+
+	void put(long fingerprint, Shape shape) {
+		if (shapes.size() >= MAX_SHAPES) {
+			// Servers with this many shapes don't benefit much anyway, start over
+			shapes.clear();
+		}
+		shapes.put(fingerprint, shape);
+	}
+
+	void recordWin(ChatUtil.Strategy strategy) {
+		wins[strategy.ordinal()].increment();
+	}
+
+	/**
+	 * @return the strategies by how often they found the sender on this server, falling
+	 * back to their default order of reliability
+	 */
+	ChatUtil.Strategy[] order() {
+		long[] counts = new long[wins.length];
+		for (int i = 0; i < wins.length; i++) {
+			counts[i] = wins[i].sum();
+		}
+		ChatUtil.Strategy[] order = ChatUtil.Strategy.VALUES.clone();
+		Arrays.sort(order, Comparator.comparingLong((ChatUtil.Strategy strategy) -> -counts[strategy.ordinal()])
+				.thenComparingInt(Enum::ordinal));
+		return order;
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.chars.Char2ObjectMap;
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.chars.CharArrayList;
+import it.unimi.dsi.fastutil.chars.CharList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Aho-Corasick automaton over the names of the players on the player list, which finds
+ * every name in a text in a single pass over it.
+ * <p>
+ * The automaton is immutable and compiled from a {@link Trie}, which {@link PlayerRegistry}
+ * updates incrementally as players join and leave. Transitions are stored as sorted runs
+ * of characters per state.
+ */
+public final class NameMatcher {
+
+	public static final NameMatcher EMPTY = new Trie().compile();
+
+	// Edges of state s are edgeChars/edgeTargets[edgeStart[s]..edgeStart[s + 1]), sorted by char
+	private final int[] edgeStart;
+	private final char[] edgeChars;
+	private final int[] edgeTargets;
+	private final int[] fail;
+	// The name ending at each state, and the next state down the failure chain that ends a name
+	private final @Nullable String[] names;
+	private final int[] outputLink;
+
+	private NameMatcher(int[] edgeStart, char[] edgeChars, int[] edgeTargets, int[] fail, @Nullable String[] names, int[] outputLink) {
+		this.edgeStart = edgeStart;
+		this.edgeChars = edgeChars;
+		this.edgeTargets = edgeTargets;
+		this.fail = fail;
+		this.names = names;
+		this.outputLink = outputLink;
+	}
+
+	public static NameMatcher of(Collection<String> names) {
+		Trie trie = new Trie();
+		for (String name : names) {
+			trie.add(name);
+		}
+		return trie.compile();
+	}
+
+	/**
+	 * Appends the start and end of every player name in the text to {@code out}, as pairs.
+	 * Only whole words count, so a name inside a longer word is skipped. Names may contain
+	 * spaces, so matches can overlap, in which case the one that ends first wins.
+	 */
+	public void findAll(String text, IntList out) {
+		int state = 0;
+		int end = 0;
+		for (int i = 0; i < text.length(); i++) {
+			state = step(state, text.charAt(i));
+			for (int output = firstOutput(state); output > 0; output = outputLink[output]) {
+				String name = names[output];
+				int start = i + 1 - name.length();
+				if (start >= end
+						&& (start == 0 || !isNameChar(text.charAt(start - 1)))
+						&& (i + 1 == text.length() || !isNameChar(text.charAt(i + 1)))) {
+					out.add(start);
+					out.add(i + 1);
+					end = i + 1;
+					break;
+				}
+			}
+		}
+	}
+
+	private int step(int state, char c) {
+		while (true) {
+			int target = child(state, c);
+			if (target >= 0) return target;
+			if (state == 0) return 0;
+			state = fail[state];
+		}
+	}
+
+	private int child(int state, char c) {
+		int low = edgeStart[state];
+		int high = edgeStart[state + 1] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char midChar = edgeChars[mid];
+			if (midChar < c) {
+				low = mid + 1;
+			} else if (midChar > c) {
+				high = mid - 1;
+			} else {
+				return edgeTargets[mid];
+			}
+		}
+		return -1;
+	}
+
+	private int firstOutput(int state) {
+		return names[state] != null ? state : outputLink[state];
+	}
+
+	private static boolean isNameChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+
+	/**
+	 * Finds {@code <name>} across consecutive pieces of text, one character at a time.
+	 * Whitespace is allowed between the brackets and the name.
+	 */
+	public static final class Scanner {
+
+		private final NameMatcher matcher;
+
+		private int state;
+		private int position;
+		// Position right after the last '<' and any whitespace following it
+		private int afterOpen = -1;
+		private @Nullable String pending;
+		private int pendingTag;
+		private int confirmedTag;
+
+		public Scanner(NameMatcher matcher) {
+			this.matcher = matcher;
+		}
+
+		/**
+		 * @param tag identifies where the character came from, see {@link #confirmedTag()}
+		 * @return the name this character closed the brackets of, or null
+		 */
+		public @Nullable String next(char c, int tag) {
+			String confirmed = null;
+			if (pending != null && c > ' ') {
+				if (c == '>') {
+					confirmed = pending;
+					confirmedTag = pendingTag;
+				}
+				pending = null;
+			}
+
+			state = matcher.step(state, c);
+			for (int output = matcher.firstOutput(state); output > 0; output = matcher.outputLink[output]) {
+				String name = matcher.names[output];
+				if (position + 1 - name.length() == afterOpen) {
+					pending = name;
+					pendingTag = tag;
+					break;
+				}
+			}
+
+			if (c == '<' || (c <= ' ' && afterOpen == position)) {
+				afterOpen = position + 1;
+			}
+			position++;
+			return confirmed;
+		}
+
+		/**
+		 * @return the tag of the last character of the name last returned by {@link #next}
+		 */
+		public int confirmedTag() {
+			return confirmedTag;
+		}
+	}
+
+	/**
+	 * The mutable trie the automaton is compiled from. Each node counts the names passing
+	 * through it, so removing a name only prunes the branch no other name uses.
+	 */
+	public static final class Trie {
+
+		private final Node root = new Node();
+
+		private static final class Node {
+			private final Char2ObjectMap<Node> children = new Char2ObjectOpenHashMap<>(2);
+			private @Nullable String name;
+			private int count;
+		}
+
+		public void add(String name) {
+			if (name.isEmpty() || contains(name)) return;
+			Node node = root;
+			for (int i = 0; i < name.length(); i++) {
+				node.count++;
+				node = node.children.computeIfAbsent(name.charAt(i), c -> new Node());
+			}
+			node.count++;
+			node.name = name;
+		}
+
+		public void remove(String name) {
+			if (!contains(name)) return;
+			Node node = root;
+			for (int i = 0; i < name.length(); i++) {
+				node.count--;
+				Node child = node.children.get(name.charAt(i));
+				if (child.count == 1) {
+					node.children.remove(name.charAt(i));
+					return;
+				}
+				node = child;
+			}
+			node.count--;
+			node.name = null;
+		}
+
+		public void clear() {
+			root.children.clear();
+			root.name = null;
+			root.count = 0;
+		}
+
+		private boolean contains(String name) {
+			Node node = root;
+			for (int i = 0; i < name.length() && node != null; i++) {
+				node = node.children.get(name.charAt(i));
+			}
+			return node != null && name.equals(node.name);
+		}
+
+		/**
+		 * Numbers the nodes breadth first and computes the failure links, which only depend
+		 * on shallower nodes.
+		 */
+		public NameMatcher compile() {
+			List<Node> order = new ArrayList<>();
+			order.add(root);
+			IntList edgeStart = new IntArrayList();
+			CharList edgeChars = new CharArrayList();
+			IntList edgeTargets = new IntArrayList();
+			for (int state = 0; state < order.size(); state++) {
+				Node node = order.get(state);
+				edgeStart.add(edgeChars.size());
+				char[] chars = node.children.keySet().toCharArray();
+				Arrays.sort(chars);
+				for (char c : chars) {
+					edgeChars.add(c);
+					edgeTargets.add(order.size());
+					order.add(node.children.get(c));
+				}
+			}
+			int states = order.size();
+			edgeStart.add(edgeChars.size());
+
+			@Nullable String[] names = new String[states];
+			for (int state = 0; state < states; state++) {
+				names[state] = order.get(state).name;
+			}
+
+			int[] fail = new int[states];
+			int[] outputLink = new int[states];
+			NameMatcher matcher = new NameMatcher(
+					edgeStart.toIntArray(),
+					edgeChars.toCharArray(),
+					edgeTargets.toIntArray(),
+					fail,
+					names,
+					outputLink
+			);
+			// States are numbered breadth first, so parents are always done before their children
+			for (int state = 0; state < states; state++) {
+				for (int edge = matcher.edgeStart[state]; edge < matcher.edgeStart[state + 1]; edge++) {
+					int child = matcher.edgeTargets[edge];
+					fail[child] = state == 0 ? 0 : matcher.step(fail[state], matcher.edgeChars[edge]);
+					outputLink[child] = names[fail[child]] != null ? fail[child] : outputLink[fail[child]];
+				}
+			}
+			return matcher;
+		}
+	}
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Remembers the UUID of the player names seen on a server across sessions, so that UUID
+ * based colors are known even for players that aren't on the player list.
+ * <p>
+ * Each server gets its own store, so pairs learned on one server never color another. A
+ * store is a memory-mapped file of fixed-size records sorted by the name's hash code, which
+ * is binary searched in place, so nothing is loaded up front. Newly learned pairs are kept
+ * in memory and merged into a new generation of the file on a background thread every few
+ * minutes, when leaving the server, and at shutdown. Pairs that haven't been seen for
+ * {@link #MAX_AGE_DAYS} are dropped while merging, as are the least recently seen ones past
+ * {@link #MAX_RECORDS}.
+ * <p>
+ * Older generations are deleted once they are no longer mapped, which on some platforms
+ * only happens on the next visit.
+ */
+public final class NameStore {
+
+	private static final int MAGIC = 0x43434E53;
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 16;
+	// Name hash, name length, name padded to 16 bytes, padding, day last seen, UUID
+	private static final int RECORD_SIZE = 40;
+	private static final int NAME_OFFSET = 5;
+	private static final int LAST_SEEN_OFFSET = 22;
+	private static final int UUID_OFFSET = 24;
+	private static final int MAX_NAME_LENGTH = 16;
+
+	private static final int MAX_RECORDS = 16384;
+	private static final int MAX_AGE_DAYS = 90;
+	// Pairs already stored are only written again once this old, to keep them from expiring
+	private static final int REFRESH_DAYS = 7;
+	private static final long FLUSH_INTERVAL_MINUTES = 5;
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+	private static final Comparator<String> ORDER = Comparator.comparingInt(String::hashCode)
+			.thenComparing(Comparator.naturalOrder());
+
+	private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ChatColors Name Store");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static final Object WRITE_LOCK = new Object();
+
+	private static volatile @Nullable NameStore current;
+
+	static {
+		WRITER.scheduleWithFixedDelay(() -> {
+			NameStore store = current;
+			if (store != null) store.flush();
+		}, FLUSH_INTERVAL_MINUTES, FLUSH_INTERVAL_MINUTES, TimeUnit.MINUTES);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			NameStore store = current;
+			if (store != null) store.flush();
+		}, "ChatColors Name Store Shutdown"));
+	}
+
+	private final Path directory;
+	private final Map<String, UUID> learned = new ConcurrentHashMap<>();
+	private volatile @Nullable Store store;
+
+	private NameStore(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Switches to the store of the given server, saving what was learned on the previous one.
+	 */
+	public static void enterServer(String address) {
+		String folder = address.isEmpty()
+				? "singleplayer"
+				: address.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "_");
+		Path directory = Platform.INSTANCE.getConfigDir().resolve(ChatColors.MOD_ID + "-names").resolve(folder);
+		NameStore previous = current;
+		// Logging in again, for example when a proxy switches backends, keeps the same store
+		if (previous != null && previous.directory.equals(directory)) return;
+
+		leaveServer();
+		current = new NameStore(directory);
+	}
+
+	/**
+	 * Saves what was learned on the current server in the background, and stops using it.
+	 */
+	public static void leaveServer() {
+		NameStore previous = current;
+		current = null;
+		if (previous != null) WRITER.execute(previous::flush);
+	}
+
+	public static @Nullable UUID get(String name) {
+		NameStore store = current;
+		if (store == null) return null;
+		UUID id = store.learned.get(name);
+		return id != null ? id : store.store().find(name);
+	}
+
+	/**
+	 * Remembers that a name belongs to the given UUID on the current server.
+	 */
+	public static void learn(String name, UUID id) {
+		NameStore store = current;
+		if (store == null || !ChatColors.settings().rememberPlayers() || !isValidName(name)) return;
+		store.remember(name, id);
+	}
+
+	private void remember(String name, UUID id) {
+		UUID learnedId = learned.get(name);
+		if (id.equals(learnedId)) return;
+		if (learnedId == null) {
+			Store stored = store();
+			int index = stored.indexOf(name);
+			if (index >= 0 && id.equals(stored.idAt(index)) && stored.lastSeenAt(index) >= today() - REFRESH_DAYS) return;
+		}
+		learned.put(name, id);
+	}
+
+	/**
+	 * Player names are at most 16 characters of {@code [A-Za-z0-9_]}, which also keeps
+	 * them within a record.
+	 */
+	private static boolean isValidName(String name) {
+		if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) return false;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_')) return false;
+		}
+		return true;
+	}
+
+	private static int today() {
+		return (int) TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis());
+	}
+
+	private Path file(int generation) {
+		return directory.resolve("names-" + generation + ".bin");
+	}
+
+	private Store store() {
+		Store mapped = store;
+		if (mapped == null) {
+			synchronized (this) {
+				mapped = store;
+				if (mapped == null) {
+					mapped = open();
+					store = mapped;
+				}
+			}
+		}
+		return mapped;
+	}
+
+	/**
+	 * Maps the latest generation of the file, and deletes the older ones.
+	 */
+	private Store open() {
+		int latest = -1;
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "names-*.bin")) {
+			for (Path path : stream) {
+				files.add(path);
+				String name = path.getFileName().toString();
+				try {
+					latest = Math.max(latest, Integer.parseInt(name.substring("names-".length(), name.length() - ".bin".length())));
+				} catch (NumberFormatException ignored) {
+				}
+			}
+		} catch (IOException e) {
+			// No store yet
+			return Store.EMPTY;
+		}
+		if (latest < 0) return Store.EMPTY;
+
+		for (Path path : files) {
+			if (!path.equals(file(latest))) deleteQuietly(path);
+		}
+		try {
+			return Store.map(file(latest), latest);
+		} catch (IOException | IllegalStateException e) {
+			ChatColors.LOGGER.error("Failed to open the player name store, starting a new one", e);
+			return new Store(null, 0, latest);
+		}
+	}
+
+	private void flush() {
+		// A store left behind may still be saving into the same directory as its successor
+		synchronized (WRITE_LOCK) {
+			write();
+		}
+	}
+
+	/**
+	 * Merges the learned pairs into a new generation of the file, dropping expired records.
+	 */
+	private void write() {
+		if (learned.isEmpty()) return;
+
+		Store stored = store();
+		if (Files.exists(file(stored.generation + 1))) {
+			// Another store for this server saved since this one was mapped, merge into theirs
+			stored = open();
+			store = stored;
+		}
+		List<Map.Entry<String, UUID>> pending = new ArrayList<>(learned.entrySet());
+		pending.sort(Map.Entry.comparingByKey(ORDER));
+		int today = today();
+
+		// The records to write in order: stored ones by index, learned ones as -(index + 1)
+		IntArrayList merged = new IntArrayList(stored.count + pending.size());
+		int i = 0;
+		int j = 0;
+		while (i < stored.count || j < pending.size()) {
+			int order;
+			if (i == stored.count) {
+				order = 1;
+			} else if (j == pending.size()) {
+				order = -1;
+			} else {
+				order = ORDER.compare(stored.nameAt(i), pending.get(j).getKey());
+			}
+
+			if (order < 0) {
+				if (stored.lastSeenAt(i) >= today - MAX_AGE_DAYS) merged.add(i);
+				i++;
+			} else {
+				// Learned pairs replace the stored ones
+				merged.add(-(j + 1));
+				j++;
+				if (order == 0) i++;
+			}
+		}
+
+		// Past the limit, only the most recently seen records are kept
+		int cutoff = Integer.MIN_VALUE;
+		int droppedAtCutoff = 0;
+		if (merged.size() > MAX_RECORDS) {
+			int[] lastSeen = new int[merged.size()];
+			for (int k = 0; k < lastSeen.length; k++) {
+				int record = merged.getInt(k);
+				lastSeen[k] = record >= 0 ? stored.lastSeenAt(record) : today;
+			}
+			Arrays.sort(lastSeen);
+			cutoff = lastSeen[lastSeen.length - MAX_RECORDS];
+			for (int k = lastSeen.length - MAX_RECORDS - 1; k >= 0 && lastSeen[k] == cutoff; k--) {
+				droppedAtCutoff++;
+			}
+		}
+
+		int generation = stored.generation + 1;
+		try {
+			Files.createDirectories(directory);
+			Path temporary = directory.resolve("names.tmp");
+			int count = 0;
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+				out.position(HEADER_SIZE);
+				for (int k = 0; k < merged.size(); k++) {
+					int record = merged.getInt(k);
+					int lastSeen = record >= 0 ? stored.lastSeenAt(record) : today;
+					if (lastSeen < cutoff || lastSeen == cutoff && droppedAtCutoff-- > 0) continue;
+
+					if (out.remaining() < RECORD_SIZE) {
+						out.flip();
+						while (out.hasRemaining()) channel.write(out);
+						out.clear();
+					}
+					if (record >= 0) {
+						out.put(stored.buffer.slice(HEADER_SIZE + record * RECORD_SIZE, RECORD_SIZE));
+					} else {
+						Map.Entry<String, UUID> entry = pending.get(-record - 1);
+						writeRecord(out, entry.getKey(), entry.getValue(), today);
+					}
+					count++;
+				}
+				out.flip();
+				while (out.hasRemaining()) channel.write(out);
+				channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(count).flip(), 0);
+			}
+			Files.move(temporary, file(generation), StandardCopyOption.ATOMIC_MOVE);
+			store = Store.map(file(generation), generation);
+		} catch (IOException | IllegalStateException e) {
+			ChatColors.LOGGER.error("Failed to save the player name store", e);
+			return;
+		}
+
+		for (Map.Entry<String, UUID> entry : pending) {
+			learned.remove(entry.getKey(), entry.getValue());
+		}
+		if (stored.generation >= 0) deleteQuietly(file(stored.generation));
+	}
+
+	private static void writeRecord(ByteBuffer out, String name, UUID id, int lastSeen) {
+		int start = out.position();
+		out.putInt(name.hashCode());
+		out.put((byte) name.length());
+		for (int k = 0; k < MAX_NAME_LENGTH; k++) {
+			out.put(k < name.length() ? (byte) name.charAt(k) : 0);
+		}
+		out.putChar(start + LAST_SEEN_OFFSET, (char) lastSeen);
+		out.position(start + UUID_OFFSET);
+		out.putLong(id.getMostSignificantBits());
+		out.putLong(id.getLeastSignificantBits());
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException ignored) {
+			// Still mapped on some platforms, it will be deleted on the next visit
+		}
+	}
+
+	/**
+	 * One mapped generation of the file. Only absolute reads are used, so it can be shared
+	 * between threads.
+	 */
+	private record Store(@Nullable ByteBuffer buffer, int count, int generation) {
+
+		static final Store EMPTY = new Store(null, 0, -1);
+
+		static Store map(Path file, int generation) throws IOException {
+			MappedByteBuffer buffer;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+				throw new IllegalStateException("Not a player name store: " + file);
+			}
+			// Written by another version, replaced by the next flush
+			if (buffer.getInt(4) != VERSION) return new Store(null, 0, generation);
+
+			int count = buffer.getInt(8);
+			if (buffer.capacity() < HEADER_SIZE + (long) count * RECORD_SIZE) {
+				throw new IllegalStateException("Truncated player name store: " + file);
+			}
+			return new Store(buffer, count, generation);
+		}
+
+		@Nullable UUID find(String name) {
+			int index = indexOf(name);
+			return index < 0 ? null : idAt(index);
+		}
+
+		int indexOf(String name) {
+			if (buffer == null) return -1;
+			int hash = name.hashCode();
+
+			// First record with a hash that isn't lower
+			int low = 0;
+			int high = count;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (hashAt(mid) < hash) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+
+			for (int i = low; i < count && hashAt(i) == hash; i++) {
+				if (nameEquals(i, name)) return i;
+			}
+			return -1;
+		}
+
+		UUID idAt(int index) {
+			int offset = HEADER_SIZE + index * RECORD_SIZE + UUID_OFFSET;
+			return new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+		}
+
+		int lastSeenAt(int index) {
+			return buffer.getChar(HEADER_SIZE + index * RECORD_SIZE + LAST_SEEN_OFFSET);
+		}
+
+		private int hashAt(int index) {
+			return buffer.getInt(HEADER_SIZE + index * RECORD_SIZE);
+		}
+
+		private boolean nameEquals(int index, String name) {
+			int offset = HEADER_SIZE + index * RECORD_SIZE;
+			if (buffer.get(offset + 4) != name.length()) return false;
+			for (int k = 0; k < name.length(); k++) {
+				if (buffer.get(offset + NAME_OFFSET + k) != name.charAt(k)) return false;
+			}
+			return true;
+		}
+
+		private String nameAt(int index) {
+			int offset = HEADER_SIZE + index * RECORD_SIZE;
+			char[] name = new char[buffer.get(offset + 4)];
+			for (int k = 0; k < name.length; k++) {
+				name[k] = (char) buffer.get(offset + NAME_OFFSET + k);
+			}
+			return new String(name);
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import net.minecraft.network.chat.TextColor;
+
+/**
+ * Lookup table of the chat colors around the hue wheel, spaced so that neighbouring entries
+ * are equally far apart in the Oklab color space rather than in hue.
+ * <p>
+ * Plain hue steps bunch up around green and cyan, where the eye tells colors apart the
+ * least, so evenly spaced positions in this table look more evenly spread than evenly
+ * spaced hues.
+ */
+public final class PerceptualHues {
+
+	private PerceptualHues() {}
+
+	private static final int SIZE = 1024;
+	// Resolution at which the wheel is measured before being resampled into the table
+	private static final int SAMPLES = 4096;
+	private static final float SATURATION = 0.60f;
+	private static final float VALUE = 1.0f;
+
+	private static final TextColor[] COLORS = build();
+
+	/**
+	 * @param position position around the wheel in the range {@code 0.0 <= position < 1.0}
+	 */
+	public static TextColor color(double position) {
+		return COLORS[(int) (position * SIZE) & (SIZE - 1)];
+	}
+
+	private static TextColor[] build() {
+		// Cumulative perceptual distance from hue 0 to each sample
+		double[] arc = new double[SAMPLES + 1];
+		double[] previous = oklab(ColorUtil.hsvToArgb(0.0f, SATURATION, VALUE));
+		for (int i = 1; i <= SAMPLES; i++) {
+			double[] lab = oklab(ColorUtil.hsvToArgb((float) i / SAMPLES, SATURATION, VALUE));
+			double dl = lab[0] - previous[0];
+			double da = lab[1] - previous[1];
+			double db = lab[2] - previous[2];
+			arc[i] = arc[i - 1] + Math.sqrt(dl * dl + da * da + db * db);
+			previous = lab;
+		}
+
+		TextColor[] colors = new TextColor[SIZE];
+		int sample = 0;
+		for (int i = 0; i < SIZE; i++) {
+			double target = arc[SAMPLES] * i / SIZE;
+			while (arc[sample + 1] < target) sample++;
+			colors[i] = TextColor.fromRgb(ColorUtil.hsvToArgb((float) sample / SAMPLES, SATURATION, VALUE));
+		}
+		return colors;
+	}
+
+	private static double[] oklab(int argb) {
+		double r = linear((argb >> 16) & 0xFF);
+		double g = linear((argb >> 8) & 0xFF);
+		double b = linear(argb & 0xFF);
+
+		double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+		double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+		double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+
+		return new double[]{
+				0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s,
+				1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s,
+				0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s
+		};
+	}
+
+	// sRGB transfer function
+	private static double linear(int channel) {
+		double c = channel / 255.0;
+		return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+	}
+}
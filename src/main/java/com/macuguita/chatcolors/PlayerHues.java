@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.UUID;
+
+import net.minecraft.network.chat.TextColor;
+import net.minecraft.util.ARGB;
+
+/**
+ * The hue functions behind every player color, shared by the client and the server so
+ * that both give a player the same color.
+ */
+public final class PlayerHues {
+
+	private PlayerHues() {}
+
+	/**
+	 * @param name a player's username
+	 * @return hue in the range {@code 0.0f <= hue <= 1.0f}
+	 */
+	public static float nameToHue(String name) {
+		int hash = name.hashCode();
+		return (float) Math.floorMod(hash, 256) / 255f;
+	}
+
+	/**
+	 * @param uuid A player's UUID
+	 * @return hue in the range {@code 0.0f <= hue <= 1.0f}.
+	 * Uses the same implementation as minecraft waypoints
+	 */
+	public static float UUIDToHue(UUID uuid) {
+		int colorInt = ARGB.setBrightness(ARGB.color(255, uuid.hashCode()), 0.9f);
+		return ColorUtil.hue(colorInt);
+	}
+
+	/**
+	 * @param hue hue in the range {@code 0.0f <= hue <= 1.0f}
+	 * @return the chat color for the given hue
+	 */
+	public static TextColor hueToColor(float hue) {
+		return TextColor.fromRgb(ColorUtil.hsvToArgb(hue, 0.60f, 1.0f));
+	}
+}
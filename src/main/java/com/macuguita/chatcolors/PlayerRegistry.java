@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Index of the players currently on the server's player list, by name and by UUID.
+ * <p>
+ * Kept up to date from the player info packets, so it also contains players that are
+ * outside of render distance and thus missing from {@code level.players()}.
+ * <p>
+ * The index is only mutated on the main thread. Readers go through an immutable
+ * {@link Snapshot}, which is republished by {@link #publish()} after each packet so it can
+ * be handed to other threads.
+ */
+public final class PlayerRegistry {
+
+	private PlayerRegistry() {}
+
+	private static final Map<String, UUID> BY_NAME = new HashMap<>();
+	private static final Map<UUID, String> BY_ID = new HashMap<>();
+	private static final NameMatcher.Trie NAMES = new NameMatcher.Trie();
+	private static @Nullable String localName;
+
+	private static boolean dirty;
+	// Players that joined since the last publish, whose messages may need new colors
+	private static final List<String> JOINED = new ArrayList<>();
+	private static volatile Snapshot snapshot = Snapshot.EMPTY;
+
+	// Player list packets received on the network thread, and applied on the main thread
+	private static final AtomicLong RECEIVED = new AtomicLong();
+	// Numbers every snapshot, so caches can tell lists apart without holding on to them
+	private static final AtomicLong VERSIONS = new AtomicLong();
+	private static volatile long applied;
+
+	public static void add(UUID id, String name) {
+		String previous = BY_ID.put(id, name);
+		if (previous == null) {
+			JOINED.add(name);
+			HueAllocator.join(id);
+		} else if (!previous.equals(name)) {
+			if (BY_NAME.remove(previous, id)) NAMES.remove(previous);
+		}
+		BY_NAME.put(name, id);
+		NAMES.add(name);
+		NameStore.learn(name, id);
+		dirty = true;
+	}
+
+	public static void remove(UUID id) {
+		String name = BY_ID.remove(id);
+		if (name != null) {
+			if (BY_NAME.remove(name, id)) NAMES.remove(name);
+			HueAllocator.leave(id);
+			ColorCache.evict(id, name);
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Forgets every player, and remembers the name the local player joined with.
+	 */
+	public static void reset(@Nullable String localPlayerName) {
+		BY_NAME.clear();
+		BY_ID.clear();
+		NAMES.clear();
+		JOINED.clear();
+		HueAllocator.reset();
+		ColorCache.clear();
+		localName = localPlayerName;
+		dirty = true;
+	}
+
+	/**
+	 * Makes the changes since the last call visible to {@link #snapshot()}, and tells
+	 * {@link HistoryRecolor} about the players that joined.
+	 */
+	public static void publish() {
+		if (!dirty) return;
+		snapshot = new Snapshot(Map.copyOf(BY_NAME), Map.copyOf(BY_ID), localName, NAMES.compile(), VERSIONS.incrementAndGet());
+		dirty = false;
+		if (!JOINED.isEmpty()) {
+			HistoryRecolor.onPlayersJoined(JOINED);
+			JOINED.clear();
+		}
+	}
+
+	public static Snapshot snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Counts a player list packet as it arrives, before the main thread applies it.
+	 */
+	public static void received() {
+		RECEIVED.incrementAndGet();
+	}
+
+	/**
+	 * Counts a player list packet as applied, once it has been published.
+	 */
+	public static void applied() {
+		applied++;
+	}
+
+	/**
+	 * Counts every packet received so far as applied, e.g. after a login.
+	 */
+	public static void resync() {
+		applied = RECEIVED.get();
+	}
+
+	/**
+	 * @return true if the snapshot reflects every player list packet received so far, so a
+	 * chat packet arriving now would be recolored against the same list on the main thread
+	 */
+	public static boolean isCurrent() {
+		return applied == RECEIVED.get();
+	}
+
+	public record Snapshot(Map<String, UUID> byName, Map<UUID, String> byId, @Nullable String localName, NameMatcher names, long version) {
+
+		public static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), null, NameMatcher.EMPTY, 0);
+
+		public Snapshot(Map<String, UUID> byName, Map<UUID, String> byId, @Nullable String localName) {
+			this(byName, byId, localName, NameMatcher.of(byName.keySet()), VERSIONS.incrementAndGet());
+		}
+
+		public @Nullable UUID getId(String name) {
+			return byName.get(name);
+		}
+
+		public @Nullable String getName(UUID id) {
+			return byId.get(id);
+		}
+
+		/**
+		 * Returns true if the given string matches a currently online player's name.
+		 */
+		public boolean contains(String name) {
+			return byName.containsKey(name);
+		}
+
+		public boolean isLocalPlayer(String name) {
+			return name.equals(localName);
+		}
+	}
+}
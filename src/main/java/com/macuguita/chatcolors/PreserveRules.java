@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.network.chat.ClickEvent;
+import net.minecraft.network.chat.Style;
+import net.minecraft.network.chat.TextColor;
+
+/**
+ * Rules for the parts of a message that are never recolored, such as ChatPatches
+ * timestamps.
+ * <p>
+ * A rule is written as {@code target:op:value}. The target is one of {@code click} (the
+ * click event's command, URL or copied text), {@code insertion}, {@code text} or
+ * {@code color}, and the op one of {@code equals}, {@code prefix}, {@code suffix},
+ * {@code contains} or {@code pattern}, where {@code #} matches any digit. Color rules only
+ * support {@code equals}.
+ * <p>
+ * Rules come from the built-in profiles of the mods that are loaded and from the config.
+ * They are compiled once per load of the config, and matching them doesn't allocate.
+ */
+public final class PreserveRules {
+
+	// ChatPatches suggests the date of the message when clicking its timestamp
+	private static final List<String> CHAT_PATCHES = List.of("click:pattern:##/##/####");
+
+	public static final PreserveRules NONE = new PreserveRules(List.of(), new Rule[0]);
+
+	private final List<String> sources;
+	private final Rule[] rules;
+
+	private PreserveRules(List<String> sources, Rule[] rules) {
+		this.sources = sources;
+		this.rules = rules;
+	}
+
+	@FunctionalInterface
+	private interface Rule {
+		/**
+		 * @param text the part's text, or null if it isn't known
+		 */
+		boolean matches(Style style, @Nullable String text);
+	}
+
+	public static PreserveRules compile(List<String> userRules, boolean chatPatchesLoaded) {
+		List<String> sources = new ArrayList<>();
+		if (chatPatchesLoaded) sources.addAll(CHAT_PATCHES);
+		sources.addAll(userRules);
+
+		List<Rule> rules = new ArrayList<>(sources.size());
+		for (String source : List.copyOf(sources)) {
+			try {
+				rules.add(parse(source));
+			} catch (IllegalArgumentException e) {
+				ChatColors.LOGGER.warn("Ignoring invalid preserve rule '{}': {}", source, e.getMessage());
+				sources.remove(source);
+			}
+		}
+		return rules.isEmpty() ? NONE : new PreserveRules(List.copyOf(sources), rules.toArray(Rule[]::new));
+	}
+
+	/**
+	 * @param text the part's text, or null if it isn't known, in which case text rules never match
+	 * @return true if the part should be left as it is
+	 */
+	public boolean matches(Style style, @Nullable String text) {
+		for (Rule rule : rules) {
+			if (rule.matches(style, text)) return true;
+		}
+		return false;
+	}
+
+	private static Rule parse(String source) {
+		String[] parts = source.split(":", 3);
+		if (parts.length != 3) throw new IllegalArgumentException("expected target:op:value");
+		String op = parts[1];
+		String value = parts[2];
+
+		if (parts[0].equals("color")) {
+			if (!op.equals("equals")) throw new IllegalArgumentException("color rules only support equals");
+			TextColor color = TextColor.parseColor(value).getOrThrow(IllegalArgumentException::new);
+			return (style, text) -> color.equals(style.getColor());
+		}
+
+		Predicate<String> predicate = switch (op) {
+			case "equals" -> value::equals;
+			case "prefix" -> string -> string.startsWith(value);
+			case "suffix" -> string -> string.endsWith(value);
+			case "contains" -> string -> string.contains(value);
+			case "pattern" -> string -> matchesPattern(value, string);
+			default -> throw new IllegalArgumentException("unknown op " + op);
+		};
+		return switch (parts[0]) {
+			case "click" -> (style, text) -> {
+				String clickValue = clickValue(style.getClickEvent());
+				return clickValue != null && predicate.test(clickValue);
+			};
+			case "insertion" -> (style, text) -> style.getInsertion() != null && predicate.test(style.getInsertion());
+			case "text" -> (style, text) -> text != null && predicate.test(text);
+			default -> throw new IllegalArgumentException("unknown target " + parts[0]);
+		};
+	}
+
+	private static @Nullable String clickValue(@Nullable ClickEvent click) {
+		return switch (click) {
+			case ClickEvent.SuggestCommand(String command) -> command;
+			case ClickEvent.RunCommand(String command) -> command;
+			case ClickEvent.CopyToClipboard(String value) -> value;
+			case ClickEvent.OpenUrl(URI uri) -> uri.toString();
+			case null, default -> null;
+		};
+	}
+
+	/**
+	 * Matches the whole string against a pattern where {@code #} stands for any digit and
+	 * every other character for itself.
+	 */
+	private static boolean matchesPattern(String pattern, String string) {
+		if (pattern.length() != string.length()) return false;
+		for (int i = 0; i < pattern.length(); i++) {
+			char expected = pattern.charAt(i);
+			char actual = string.charAt(i);
+			if (expected == '#' ? actual < '0' || actual > '9' : expected != actual) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean equals(@Nullable Object obj) {
+		return obj instanceof PreserveRules other && sources.equals(other.sources);
+	}
+
+	@Override
+	public int hashCode() {
+		return sources.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return sources.toString();
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.mojang.authlib.GameProfile;
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.network.chat.ChatType;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.TextColor;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+/**
+ * Colors the sender's name once per broadcast when the mod runs on a server, including the
+ * integrated one, so that every receiver sees the colors without having the mod.
+ * <p>
+ * The sender is known there, so nothing has to be extracted from the message: only the
+ * decoration's name is recolored, with the same hues as {@link ColorCache}. The colored
+ * name of each connected player is cached until their display name or the settings change.
+ * <p>
+ * Must not reach any client class, it runs on dedicated servers.
+ */
+public final class ServerChatColors {
+
+	private ServerChatColors() {}
+
+	private static final Map<UUID, Decorated> BY_PLAYER = new ConcurrentHashMap<>();
+
+	private record Decorated(Component source, Component colored, ConfigSnapshot settings) {}
+
+	/**
+	 * @return the chat decoration with the sender's name colored, or the same one if it
+	 * shouldn't be
+	 */
+	public static ChatType.Bound decorate(ChatType.Bound bound, @Nullable ServerPlayer sender) {
+		ConfigSnapshot settings = ChatColors.settings();
+		if (sender == null || !settings.enableMod() || !settings.colorOnServer() || !settings.colorPlayerNames()) {
+			return bound;
+		}
+
+		if (!settings.colorSelf() && isHost(sender)) return bound;
+
+		Component name = bound.name();
+		Decorated decorated = BY_PLAYER.get(sender.getUUID());
+		if (decorated == null
+				|| !decorated.source().equals(name)
+				|| decorated.settings() != settings && !decorated.settings().sameColors(settings)) {
+			decorated = new Decorated(name, color(name, sender, settings), settings);
+			BY_PLAYER.put(sender.getUUID(), decorated);
+		}
+		return new ChatType.Bound(bound.chatType(), decorated.colored(), bound.targetName());
+	}
+
+	/**
+	 * Forgets a player that left.
+	 */
+	public static void evict(UUID id) {
+		BY_PLAYER.remove(id);
+	}
+
+	/**
+	 * @return true if the player is hosting the integrated server, i.e. the local player of
+	 * the client the settings belong to
+	 */
+	private static boolean isHost(ServerPlayer player) {
+		MinecraftServer server = player.level().getServer();
+		if (server == null || server.isDedicatedServer()) return false;
+		GameProfile host = server.getSingleplayerProfile();
+		return host != null && player.getUUID().equals(host.id());
+	}
+
+	/**
+	 * Colors the name unless it already has a color of its own. Colored parts inside it,
+	 * like the name of a player on a colored team, keep theirs.
+	 */
+	private static Component color(Component name, ServerPlayer sender, ConfigSnapshot settings) {
+		TextColor own = name.getStyle().getColor();
+		if (own != null && own.getValue() != 0xFFFFFF && !settings.overrideAllColor()) return name;
+
+		float hue = settings.useLocatorBarColors()
+				? PlayerHues.UUIDToHue(sender.getUUID())
+				: PlayerHues.nameToHue(sender.getGameProfile().name());
+		return name.copy().setStyle(name.getStyle().withColor(PlayerHues.hueToColor(hue)));
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.Style;
+import net.minecraft.util.FormattedCharSequence;
+
+/**
+ * Colors the sender of a chat message while its lines are rendered, instead of rebuilding
+ * the message when it is received.
+ * <p>
+ * One instance is shared by all the wrapped lines of a message. The sender is only resolved
+ * the first time one of those lines is drawn, so messages that are never visible cost
+ * nothing beyond wrapping.
+ * <p>
+ * Only used on the render thread.
+ */
+public final class StyleOverride {
+
+	private final Component message;
+
+	private boolean resolved;
+	private ChatUtil.@Nullable Sender sender;
+
+	// Consecutive characters almost always share a style, so remember the last one
+	private @Nullable Style lastStyle;
+	private @Nullable Style lastResult;
+
+	public StyleOverride(Component message) {
+		this.message = message;
+	}
+
+	public FormattedCharSequence decorate(FormattedCharSequence line) {
+		return sink -> line.accept((index, style, codePoint) -> sink.accept(index, apply(style), codePoint));
+	}
+
+	private Style apply(Style style) {
+		if (!resolved) {
+			sender = ChatUtil.resolveSender(message, PlayerRegistry.snapshot());
+			resolved = true;
+		}
+		if (sender == null) return style;
+
+		if (style != lastStyle) {
+			lastStyle = style;
+			lastResult = ChatUtil.recolorStyle(style, sender);
+		}
+		return lastResult;
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.minecraft.network.chat.Component;
+
+/**
+ * Runs the {@link ChatFixtures} through {@link ChatUtil}, and so through {@code FormatUtil},
+ * on a background thread while the game loads. The classes are then loaded and the hot
+ * paths compiled before the first real message arrives.
+ * <p>
+ * The warm-up uses its own settings and player list, and stops early once the player joins
+ * a world so it never competes with real messages.
+ */
+public final class Warmup {
+
+	private Warmup() {}
+
+	private static final int ROUNDS = 2000;
+
+	public static void start() {
+		Thread thread = new Thread(Warmup::run, "ChatColors Warmup");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	private static void run() {
+		long start = System.nanoTime();
+		try {
+			PlayerRegistry.Snapshot players = ChatFixtures.players(64);
+			List<Component> messages = new ArrayList<>();
+			for (ChatFixtures.Message message : ChatFixtures.Message.values()) {
+				messages.add(ChatFixtures.message(message));
+			}
+			for (ChatUtil.Strategy strategy : ChatUtil.Strategy.VALUES) {
+				messages.add(ChatFixtures.messageFor(strategy));
+			}
+
+			rounds:
+			for (int round = 0; round < ROUNDS; round++) {
+				for (Component message : messages) {
+					// Shapes are learned per server, don't teach the fixtures to a real one
+					if (MessageShapes.current() != null) break rounds;
+					ChatUtil.applyPlayerColor(message, players, ChatFixtures.SETTINGS);
+				}
+			}
+		} catch (RuntimeException e) {
+			ChatColors.LOGGER.warn("Failed to warm up", e);
+		}
+		ChatColors.LOGGER.debug("Warmed up in {} ms", (System.nanoTime() - start) / 1_000_000);
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.Nullable;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.contents.TranslatableContents;
+
+/**
+ * Emitted for each message recolored by {@link com.macuguita.chatcolors.ChatUtil#applyPlayerColor}.
+ */
+@Name("chatcolors.Recolor")
+@Label("Chat Recolor")
+@Category("Chat Colors")
+@Description("A chat message being recolored")
+@StackTrace(false)
+public class RecolorEvent extends Event {
+
+	@Label("Nodes")
+	@Description("Number of components in the message")
+	public int nodes;
+
+	@Label("Strategy")
+	@Description("How the sender was found, if at all")
+	public @Nullable String strategy;
+
+	@Label("Translatable Converted")
+	@Description("Whether translatable contents had to be converted to literals")
+	public boolean translatableConverted;
+
+	@Label("Allocated")
+	@Description("Bytes allocated by the recoloring thread while recoloring")
+	@DataAmount
+	public long allocated;
+
+	/**
+	 * Fills in the fields describing the message itself.
+	 */
+	public void describe(Component message) {
+		nodes = 0;
+		translatableConverted = false;
+		count(message);
+	}
+
+	private void count(Component component) {
+		nodes++;
+		if (component.getContents() instanceof TranslatableContents contents) {
+			translatableConverted = true;
+			for (Object arg : contents.getArgs()) {
+				if (arg instanceof Component argComponent) count(argComponent);
+			}
+		}
+		for (Component sibling : component.getSiblings()) {
+			count(sibling);
+		}
+	}
+}
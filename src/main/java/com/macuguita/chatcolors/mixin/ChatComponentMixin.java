@@ -22,15 +22,26 @@
 
 package com.macuguita.chatcolors.mixin;
 
+import java.util.List;
+
+import com.llamalad7.mixinextras.injector.ModifyExpressionValue;
+import com.llamalad7.mixinextras.sugar.Local;
+import com.macuguita.chatcolors.ChatBacklog;
 import com.macuguita.chatcolors.ChatColors;
-import com.macuguita.chatcolors.ChatUtil;
+import com.macuguita.chatcolors.ChatCorpus;
+import com.macuguita.chatcolors.ChatHistory;
+import com.macuguita.chatcolors.HistoryRecolor;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.ModifyVariable;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
+import net.minecraft.client.GuiMessage;
 import net.minecraft.client.gui.components.ChatComponent;
 import net.minecraft.network.chat.Component;
+import net.minecraft.util.FormattedCharSequence;
 
 @Mixin(ChatComponent.class)
 public class ChatComponentMixin {
@@ -50,7 +61,29 @@ public class ChatComponentMixin {
 			order = 1001
 	)
 	private Component chatcolors$modifyMessage(Component component) {
-		if (!ChatColors.CONFIG.enableMod) return component;
-		return ChatUtil.applyPlayerColor(component);
+		ChatCorpus.record(component);
+		HistoryRecolor.onMessageAdded();
+		if (!ChatColors.settings().recolorsMessages()) return component;
+		return ChatBacklog.recolor(component);
+	}
+
+	@ModifyExpressionValue(
+			method = "addMessageToDisplayQueue",
+			at = @At(
+					value = "INVOKE",
+					target = "Lnet/minecraft/client/gui/components/ComponentRenderUtils;wrapComponents(Lnet/minecraft/network/chat/FormattedText;ILnet/minecraft/client/gui/Font;)Ljava/util/List;"
+			)
+	)
+	private List<FormattedCharSequence> chatcolors$decorateLines(
+			List<FormattedCharSequence> lines,
+			@Local(argsOnly = true) GuiMessage message
+	) {
+		return ChatHistory.decorate(lines, message.content());
+	}
+
+	// Rescaling rewraps every message, which moves the lines of a running recolor pass
+	@Inject(method = "refreshTrimmedMessages", at = @At("TAIL"))
+	private void chatcolors$onLinesRefreshed(CallbackInfo ci) {
+		HistoryRecolor.onLinesMoved();
 	}
 }
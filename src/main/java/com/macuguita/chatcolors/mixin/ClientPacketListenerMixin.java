@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors.mixin;
+
+import com.macuguita.chatcolors.ChatBacklog;
+import com.macuguita.chatcolors.ChatCorpus;
+import com.macuguita.chatcolors.ChatPipeline;
+import com.macuguita.chatcolors.MessageShapes;
+import com.macuguita.chatcolors.NameStore;
+import com.macuguita.chatcolors.PlayerRegistry;
+import com.mojang.authlib.GameProfile;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.client.multiplayer.ServerData;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.game.ClientboundDisguisedChatPacket;
+import net.minecraft.network.protocol.game.ClientboundLoginPacket;
+import net.minecraft.network.protocol.game.ClientboundPlayerChatPacket;
+import net.minecraft.network.protocol.game.ClientboundPlayerInfoRemovePacket;
+import net.minecraft.network.protocol.game.ClientboundPlayerInfoUpdatePacket;
+import net.minecraft.network.protocol.game.ClientboundSystemChatPacket;
+
+@Mixin(ClientPacketListener.class)
+public class ClientPacketListenerMixin {
+
+	// Player list handlers are injected at TAIL so they only run once, on the main thread,
+	// after vanilla has bounced the packet off the network thread. They are also counted at
+	// HEAD on the network thread, so chat packets can tell whether they are applied yet.
+
+	@Inject(method = "handleLogin", at = @At("TAIL"))
+	private void chatcolors$onLogin(ClientboundLoginPacket packet, CallbackInfo ci) {
+		ClientPacketListener listener = (ClientPacketListener) (Object) this;
+		PlayerRegistry.reset(listener.getLocalGameProfile().name());
+		PlayerRegistry.publish();
+		PlayerRegistry.resync();
+		ChatPipeline.clear();
+		ChatBacklog.clear();
+		ChatCorpus.startSession();
+
+		ServerData serverData = listener.getServerData();
+		// Singleplayer worlds all share the empty address
+		String address = serverData == null ? "" : serverData.ip;
+		NameStore.enterServer(address);
+		MessageShapes.enterServer(address);
+	}
+
+	@Inject(method = "close", at = @At("TAIL"))
+	private void chatcolors$onClose(CallbackInfo ci) {
+		NameStore.leaveServer();
+		MessageShapes.leaveServer();
+	}
+
+	@Inject(method = "handlePlayerInfoUpdate", at = @At("HEAD"))
+	private void chatcolors$onPlayerInfoUpdateReceived(ClientboundPlayerInfoUpdatePacket packet, CallbackInfo ci) {
+		if (!Minecraft.getInstance().isSameThread()) PlayerRegistry.received();
+	}
+
+	@Inject(method = "handlePlayerInfoUpdate", at = @At("TAIL"))
+	private void chatcolors$onPlayerInfoUpdate(ClientboundPlayerInfoUpdatePacket packet, CallbackInfo ci) {
+		for (ClientboundPlayerInfoUpdatePacket.Entry entry : packet.newEntries()) {
+			GameProfile profile = entry.profile();
+			if (profile != null) {
+				PlayerRegistry.add(entry.profileId(), profile.name());
+			}
+		}
+		PlayerRegistry.publish();
+		PlayerRegistry.applied();
+	}
+
+	@Inject(method = "handlePlayerInfoRemove", at = @At("HEAD"))
+	private void chatcolors$onPlayerInfoRemoveReceived(ClientboundPlayerInfoRemovePacket packet, CallbackInfo ci) {
+		if (!Minecraft.getInstance().isSameThread()) PlayerRegistry.received();
+	}
+
+	@Inject(method = "handlePlayerInfoRemove", at = @At("TAIL"))
+	private void chatcolors$onPlayerInfoRemove(ClientboundPlayerInfoRemovePacket packet, CallbackInfo ci) {
+		packet.profileIds().forEach(PlayerRegistry::remove);
+		PlayerRegistry.publish();
+		PlayerRegistry.applied();
+	}
+
+	// Chat handlers are injected at HEAD and only act on the network thread, before vanilla
+	// hands the packet over to the main thread.
+
+	@Inject(method = "handleSystemChat", at = @At("HEAD"))
+	private void chatcolors$onSystemChat(ClientboundSystemChatPacket packet, CallbackInfo ci) {
+		if (Minecraft.getInstance().isSameThread() || packet.overlay()) return;
+		ChatPipeline.submit(packet.content());
+	}
+
+	@Inject(method = "handlePlayerChat", at = @At("HEAD"))
+	private void chatcolors$onPlayerChat(ClientboundPlayerChatPacket packet, CallbackInfo ci) {
+		if (Minecraft.getInstance().isSameThread() || !packet.filterMask().isEmpty()) return;
+		// Decorate the message the same way the chat listener will, so it can be matched up
+		Component content = packet.unsignedContent() != null
+				? packet.unsignedContent()
+				: Component.literal(packet.body().content());
+		ChatPipeline.submit(packet.chatType().decorate(content));
+	}
+
+	@Inject(method = "handleDisguisedChat", at = @At("HEAD"))
+	private void chatcolors$onDisguisedChat(ClientboundDisguisedChatPacket packet, CallbackInfo ci) {
+		if (Minecraft.getInstance().isSameThread()) return;
+		ChatPipeline.submit(packet.chatType().decorate(packet.message()));
+	}
+}
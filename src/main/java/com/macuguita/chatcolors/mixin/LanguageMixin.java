@@ -22,33 +22,20 @@
 
 package com.macuguita.chatcolors.mixin;
 
-import org.jspecify.annotations.Nullable;
+import dev.terminalmc.chatnotify.util.text.FormatUtil;
 import org.spongepowered.asm.mixin.Mixin;
-import org.spongepowered.asm.mixin.gen.Invoker;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import net.minecraft.network.chat.ClickEvent;
-import net.minecraft.network.chat.FontDescription;
-import net.minecraft.network.chat.HoverEvent;
-import net.minecraft.network.chat.Style;
-import net.minecraft.network.chat.TextColor;
+import net.minecraft.locale.Language;
 
-@Mixin(Style.class)
-public interface StyleAccessor {
+@Mixin(Language.class)
+public class LanguageMixin {
 
-	@Invoker("<init>")
-	static Style chatcolors$new(
-			@Nullable TextColor color,
-			@Nullable Integer shadowColor,
-			@Nullable Boolean bold,
-			@Nullable Boolean italic,
-			@Nullable Boolean underlined,
-			@Nullable Boolean strikethrough,
-			@Nullable Boolean obfuscated,
-			@Nullable ClickEvent clickEvent,
-			@Nullable HoverEvent hoverEvent,
-			@Nullable String insertion,
-			@Nullable FontDescription font
-	) {
-		throw new AssertionError();
+	// Called on every resource reload and language change
+	@Inject(method = "inject", at = @At("TAIL"))
+	private static void chatcolors$onInject(Language language, CallbackInfo ci) {
+		FormatUtil.clearTemplateCache();
 	}
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2026 macuguita
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.macuguita.chatcolors.neoforge;
+
+//? neoforge {
+
+/*import com.macuguita.chatcolors.ChatColors;
+import com.macuguita.chatcolors.ChatColorsCommand;
+import com.macuguita.chatcolors.ChatStatsOverlay;
+
+import net.minecraft.resources.Identifier;
+
+import net.neoforged.api.distmarker.Dist;
+import net.neoforged.bus.api.IEventBus;
+import net.neoforged.fml.common.Mod;
+import net.neoforged.neoforge.client.event.RegisterClientCommandsEvent;
+import net.neoforged.neoforge.client.event.RegisterGuiLayersEvent;
+import net.neoforged.neoforge.client.gui.VanillaGuiLayers;
+import net.neoforged.neoforge.common.NeoForge;
+
+@Mod(value = ChatColors.MOD_ID, dist = Dist.CLIENT)
+public class ChatColorsNeoForgeClient {
+
+	public ChatColorsNeoForgeClient(IEventBus modBus) {
+		ChatColors.initClient();
+		NeoForge.EVENT_BUS.addListener(RegisterClientCommandsEvent.class, event ->
+				event.getDispatcher().register(ChatColorsCommand.create((source, message) -> source.sendSuccess(() -> message, false)))
+		);
+		modBus.addListener(RegisterGuiLayersEvent.class, event -> event.registerAbove(
+				VanillaGuiLayers.CHAT,
+				Identifier.fromNamespaceAndPath(ChatColors.MOD_ID, "stats"),
+				(graphics, deltaTracker) -> ChatStatsOverlay.render(graphics)
+		));
+	}
+
+}
+*///?}
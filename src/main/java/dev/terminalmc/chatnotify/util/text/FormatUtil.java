@@ -17,14 +17,19 @@
 package dev.terminalmc.chatnotify.util.text;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.IllegalFormatException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.macuguita.chatcolors.ChatColors;
 import com.macuguita.chatcolors.Platform;
-import com.macuguita.chatcolors.mixin.StyleAccessor;
+import com.macuguita.chatcolors.jfr.TranslationEvent;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import org.jetbrains.annotations.Nullable;
 
 import net.minecraft.ChatFormatting;
@@ -44,6 +49,9 @@ public class FormatUtil {
 	private static final String PLACEHOLDER_PATTERN_STRING =
 			"%(?:(\\d+)\\$)?([-#+ 0,(<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])";
 	private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile(PLACEHOLDER_PATTERN_STRING);
+	// Translation templates by key, cleared when the language is reloaded. Only keys of the
+	// language are cached, so that servers sending arbitrary text as keys can't grow it
+	private static final Map<String, Template> TEMPLATES = new ConcurrentHashMap<>();
 
 	private FormatUtil() {
 	}
@@ -58,38 +66,61 @@ public class FormatUtil {
 
 	/**
 	 * Recursively converts any {@link TranslatableContents} elements of the
-	 * {@link MutableComponent} tree to {@link PlainTextContents} elements, and in the process
+	 * {@link Component} tree to {@link PlainTextContents} elements, and in the process
 	 * converts any format codes to {@link Style}s.
+	 * <p>
+	 * The tree is never modified. Only the nodes on the path to a converted node are
+	 * rebuilt, every other subtree is shared with the original, and if nothing needs to be
+	 * converted the original instance is returned.
 	 */
-	public static MutableComponent convertToStyledLiteral(MutableComponent text)
+	public static Component convertToStyledLiteral(Component text)
 			throws IllegalArgumentException {
 		// If contents are translatable, convert to literal
-		if (text.getContents() instanceof TranslatableContents) {
-			text = convertToLiteral(text);
+		MutableComponent converted = text.getContents() instanceof TranslatableContents contents
+				? convertToLiteral(text, contents)
+				: null;
+
+		// Recurse for all siblings, a converted node's sibling list is its own to modify
+		List<Component> siblings = converted != null ? converted.getSiblings() : text.getSiblings();
+		List<Component> newSiblings = converted != null ? siblings : null;
+		for (int i = 0; i < siblings.size(); i++) {
+			Component sibling = siblings.get(i);
+			Component convertedSibling = convertToStyledLiteral(sibling);
+			if (convertedSibling != sibling) {
+				if (newSiblings == null) newSiblings = new ArrayList<>(siblings);
+				newSiblings.set(i, convertedSibling);
+			}
 		}
 
-		// Recurse for all siblings
-		text.getSiblings().replaceAll(sibling -> convertToStyledLiteral(sibling.copy()));
-
 		// Convert codes in contents
-		if (text.getContents() instanceof PlainTextContents) {
-			text = convertCodesToStyles(text);
+		boolean hasCodes = (converted != null ? converted : text).getContents() instanceof PlainTextContents plain
+				&& plain.text().contains("§");
+
+		if (converted == null) {
+			if (newSiblings == null && !hasCodes) return text;
+			// Rebuild this node around the converted siblings
+			converted = text.plainCopy().setStyle(text.getStyle());
+			converted.getSiblings().addAll(newSiblings != null ? newSiblings : siblings);
 		}
 
-		return text;
+		if (hasCodes) {
+			converted = convertCodesToStyles(converted);
+		}
+
+		return converted;
 	}
 
 	/**
-	 * Converts the contents of the {@link MutableComponent} from {@link TranslatableContents} to
-	 * {@link PlainTextContents}.
+	 * Converts the contents of the {@link Component} from {@link TranslatableContents} to
+	 * {@link PlainTextContents}, returning a new {@link MutableComponent} that shares the
+	 * original siblings.
 	 * <p>
 	 * Note: Does not recurse, only affects root. Caller must recurse if required.
 	 */
-	private static MutableComponent convertToLiteral(MutableComponent text)
+	private static MutableComponent convertToLiteral(Component text, TranslatableContents contents)
 			throws IllegalArgumentException {
-		if (!(text.getContents() instanceof TranslatableContents contents))
-			return text;
-
+		TranslationEvent event = new TranslationEvent();
+		event.begin();
 		boolean debug = Platform.INSTANCE.isDevelopment();
 
 		if (debug) {
@@ -100,8 +131,8 @@ public class FormatUtil {
 			ChatColors.LOGGER.warn("{}", text);
 		}
 
-		// Detach siblings
-		List<Component> oldSiblings = new ArrayList<>(text.getSiblings());
+		// Siblings are shared with the original and re-attached at the end
+		List<Component> oldSiblings = text.getSiblings();
 
 		// Process translatable contents
 		Language lang = Language.getInstance();
@@ -112,117 +143,58 @@ public class FormatUtil {
 		String string =
 				fallback == null ? lang.getOrDefault(key) : lang.getOrDefault(key, fallback);
 
+		Template template = getTemplate(lang, key, string);
+		Object[] originalArgs = contents.getArgs();
+		MutableComponent result;
+
 		// Minecraft will not attempt to process the placeholders if the string
 		// format is invalid, so we check that here
-		boolean validFormat = true;
-		try {
-			//noinspection ResultOfMethodCallIgnored
-			String.format(string, contents.getArgs());
-		} catch (IllegalFormatException e) {
-			validFormat = false;
-			text = Component.literal(string).withStyle(text.getStyle());
+		if (!template.isValid(originalArgs)) {
+			result = Component.literal(string).withStyle(text.getStyle());
 			if (debug) {
 				ChatColors.LOGGER.warn("Invalid string format:");
-				ChatColors.LOGGER.warn("{}", e.getMessage());
+				ChatColors.LOGGER.warn("{}", template.formatError(originalArgs));
 				ChatColors.LOGGER.warn("{}", string);
 			}
-		}
-
-		if (validFormat) {
-			// Split on placeholders to get a list of plain text elements, with
-			// one element before each placeholder and one element at the end of
-			// the list so that the string can be reconstructed using a loop.
-			// PLACEHOLDER_PATTERN.split(string) cannot be used as that doesn't
-			// split between consecutive occurrences of the pattern.
-
-			// Some translation strings reorder or reuse args, so we create a
-			// complete sequence array here
-			Object[] originalArgs = contents.getArgs();
-			List<Object> argsList = new ArrayList<>();
-			int nonIndexedCounter = 0;
-
-			List<String> split = new ArrayList<>();
-			Matcher m = PLACEHOLDER_PATTERN.matcher(string);
-			int previousEnd = 0;
-			while (m.find()) {
-				// Add preceding plain text, which will be blank if at start
-				split.add(string.substring(previousEnd, m.start()));
-				previousEnd = m.end();
-				// Add relevant arg
-				if (m.group(1) == null) {
-					// Non-indexed placeholder
-					argsList.add(originalArgs[nonIndexedCounter]);
-					nonIndexedCounter++;
-				} else {
-					// Indexed placeholder
-					int argIdx = Integer.parseInt(m.group(1));
-					if (argIdx < 1 || argIdx > originalArgs.length) {
-						ChatColors.LOGGER.warn("{}",
-								"Translation specifies arg number {} out of range for length {}",
-								argIdx,
-								originalArgs.length
-						);
-						argIdx = nonIndexedCounter + 1;
-					}
-					argsList.add(originalArgs[argIdx - 1]);
-				}
-			}
-			Object[] args = argsList.toArray();
-
-			//noinspection StatementWithEmptyBody
-			if (previousEnd == 0) {
-				// No matches, keep split empty
-			} else if (previousEnd < string.length()) {
-				// Add final plain text
-				split.add(string.substring(previousEnd));
-			} else {
-				// String ends with placeholder, add padding
-				split.add("");
-			}
+		} else {
+			String[] split = template.split;
 
 			if (debug) {
 				ChatColors.LOGGER.warn("Format string:");
 				ChatColors.LOGGER.warn("{}", string);
-				ChatColors.LOGGER.warn("Size of split array: {}", split.size());
-				ChatColors.LOGGER.warn("Size of args array: {}", contents.getArgs().length);
+				ChatColors.LOGGER.warn("Size of split array: {}", split.length);
+				ChatColors.LOGGER.warn("Size of args array: {}", originalArgs.length);
 
 				ChatColors.LOGGER.warn("Split array:");
-				StringBuilder sb = new StringBuilder("[");
-				int i = 0;
-				for (String s : split) {
-					if (i++ != 0)
-						sb.append(",");
-					sb.append(s);
-				}
-				sb.append("]");
-				ChatColors.LOGGER.warn("{}", sb);
+				ChatColors.LOGGER.warn("{}", "[" + String.join(",", split) + "]");
 			}
 
-			if (split.isEmpty()) {
+			if (split.length == 0) {
 				// No placeholders, create component from literal string
-				text = Component.literal(string).withStyle(text.getStyle());
+				result = Component.literal(string).withStyle(text.getStyle());
 			} else {
 				// Create component by alternating literal elements and args
 				// Note: args.length is at least numPlaceholders at this point,
-				// else the earlier String.format check would have failed.
-				int numPlaceholders = split.size() - 1;
+				// else the earlier format check would have failed.
+				int numPlaceholders = split.length - 1;
 
 				// Create an empty component, and add each literal element and
 				// each arg as siblings in sequence
-				text = Component.empty().withStyle(text.getStyle());
-				List<Component> siblings = text.getSiblings();
+				result = Component.empty().withStyle(text.getStyle());
+				List<Component> siblings = result.getSiblings();
 
 				for (int i = 0; i < numPlaceholders; i++) {
 					// Add translated substring
-					if (!split.get(i).isEmpty()) {
+					if (!split[i].isEmpty()) {
 						if (debug) {
 							ChatColors.LOGGER.warn("Adding translated substring:");
-							ChatColors.LOGGER.warn("{}", split.get(i));
+							ChatColors.LOGGER.warn("{}", split[i]);
 						}
-						siblings.add(Component.literal(split.get(i)));
+						siblings.add(Component.literal(split[i]));
 					}
 					// Add subsequent arg
-					if (args[i] instanceof Component argComponent) {
+					Object arg = originalArgs[template.argIndex(i, originalArgs.length)];
+					if (arg instanceof Component argComponent) {
 						if (debug) {
 							ChatColors.LOGGER.warn("Adding arg component");
 							ChatColors.LOGGER.warn("Text:");
@@ -235,24 +207,166 @@ public class FormatUtil {
 						if (debug) {
 							ChatColors.LOGGER.warn("Adding arg object");
 							ChatColors.LOGGER.warn("getClass():");
-							ChatColors.LOGGER.warn("{}", args[i].getClass().getName());
+							ChatColors.LOGGER.warn("{}", arg.getClass().getName());
 							ChatColors.LOGGER.warn("toString():");
-							ChatColors.LOGGER.warn("{}", args[i].toString());
+							ChatColors.LOGGER.warn("{}", arg.toString());
 						}
-						siblings.add(Component.literal(args[i].toString()));
+						siblings.add(Component.literal(arg.toString()));
 					}
 				}
 				// Add final translated substring
-				if (!split.getLast().isEmpty()) {
-					siblings.add(Component.literal(split.getLast()));
+				if (!split[numPlaceholders].isEmpty()) {
+					siblings.add(Component.literal(split[numPlaceholders]));
 				}
 			}
 		}
 
 		// Re-attach siblings
-		text.getSiblings().addAll(oldSiblings);
+		result.getSiblings().addAll(oldSiblings);
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.key = key;
+			event.args = originalArgs.length;
+			event.validFormat = template.isValid(originalArgs);
+			event.commit();
+		}
 
-		return text;
+		return result;
+	}
+
+	/**
+	 * Drops all compiled translation templates. Called whenever the language is reloaded.
+	 */
+	public static void clearTemplateCache() {
+		TEMPLATES.clear();
+	}
+
+	private static Template getTemplate(Language lang, String key, String string) {
+		if (!lang.has(key)) return Template.compile(string);
+
+		Template template = TEMPLATES.get(key);
+		if (template == null || !template.source.equals(string)) {
+			// Either not compiled yet, or compiled from an older translation
+			template = Template.compile(string);
+			TEMPLATES.put(key, template);
+		}
+		return template;
+	}
+
+	/**
+	 * A translation string compiled into its plain text elements and the args that go
+	 * between them.
+	 *
+	 * @param split one element before each placeholder and one at the end, so that the
+	 * string can be reconstructed using a loop. Empty if there are no placeholders.
+	 * @param explicitIndexes the 1-based arg index of each placeholder, or 0 if not indexed
+	 * @param sequentialIndexes the 0-based index of the next non-indexed arg at each
+	 * placeholder, which is also used when an explicit index is out of range
+	 * @param minArgs the number of args needed for the string to be a valid format, or -1
+	 * if that depends on the type of the args and must be checked every time
+	 */
+	private record Template(String source, String[] split, int[] explicitIndexes,
+							int[] sequentialIndexes, int minArgs) {
+
+		static Template compile(String string) {
+			// Split on placeholders to get a list of plain text elements.
+			// PLACEHOLDER_PATTERN.split(string) cannot be used as that doesn't
+			// split between consecutive occurrences of the pattern.
+			List<String> split = new ArrayList<>();
+			IntList explicitIndexes = new IntArrayList();
+			IntList sequentialIndexes = new IntArrayList();
+			int nonIndexedCounter = 0;
+			int maxExplicitIndex = 0;
+
+			Matcher m = PLACEHOLDER_PATTERN.matcher(string);
+			int previousEnd = 0;
+			while (m.find()) {
+				// Add preceding plain text, which will be blank if at start
+				split.add(string.substring(previousEnd, m.start()));
+				previousEnd = m.end();
+				// Some translation strings reorder or reuse args, so keep track of
+				// which arg each placeholder refers to
+				sequentialIndexes.add(nonIndexedCounter);
+				if (m.group(1) == null) {
+					// Non-indexed placeholder
+					explicitIndexes.add(0);
+					nonIndexedCounter++;
+				} else {
+					// Indexed placeholder
+					int argIdx = Integer.parseInt(m.group(1));
+					explicitIndexes.add(argIdx);
+					maxExplicitIndex = Math.max(maxExplicitIndex, argIdx);
+				}
+			}
+
+			//noinspection StatementWithEmptyBody
+			if (previousEnd == 0) {
+				// No matches, keep split empty
+			} else if (previousEnd < string.length()) {
+				// Add final plain text
+				split.add(string.substring(previousEnd));
+			} else {
+				// String ends with placeholder, add padding
+				split.add("");
+			}
+
+			return new Template(
+					string,
+					split.toArray(String[]::new),
+					explicitIndexes.toIntArray(),
+					sequentialIndexes.toIntArray(),
+					findMinArgs(string, nonIndexedCounter + maxExplicitIndex)
+			);
+		}
+
+		/**
+		 * Finds the smallest number of string args that the string can be formatted with.
+		 * Placeholders like {@code %s} accept any arg, so if the string is valid with that
+		 * many strings it is valid with that many args of any type.
+		 */
+		private static int findMinArgs(String string, int maxArgs) {
+			for (int n = 0; n <= maxArgs; n++) {
+				Object[] args = new Object[n];
+				Arrays.fill(args, "");
+				try {
+					//noinspection ResultOfMethodCallIgnored
+					String.format(string, args);
+					return n;
+				} catch (IllegalFormatException ignored) {
+				}
+			}
+			return -1;
+		}
+
+		boolean isValid(Object[] args) {
+			if (minArgs >= 0) return args.length >= minArgs;
+			return formatError(args) == null;
+		}
+
+		@Nullable String formatError(Object[] args) {
+			try {
+				//noinspection ResultOfMethodCallIgnored
+				String.format(source, args);
+				return null;
+			} catch (IllegalFormatException e) {
+				return e.getMessage() == null ? e.toString() : e.getMessage();
+			}
+		}
+
+		int argIndex(int placeholder, int argCount) {
+			int argIdx = explicitIndexes[placeholder];
+			if (argIdx == 0) return sequentialIndexes[placeholder];
+			if (argIdx > argCount) {
+				ChatColors.LOGGER.warn("{}",
+						"Translation specifies arg number {} out of range for length {}",
+						argIdx,
+						argCount
+				);
+				return sequentialIndexes[placeholder];
+			}
+			return argIdx - 1;
+		}
 	}
 
 	/**
@@ -273,43 +387,27 @@ public class FormatUtil {
 		// Detach siblings
 		List<Component> oldSiblings = new ArrayList<>(text.getSiblings());
 
-		// Convert
+		// Convert, emitting the text between codes by span
 		text = Component.empty().withStyle(text.getStyle());
-		StringBuilder sb = new StringBuilder();
-		char[] chars = str.toCharArray();
-		FormatCodes codes = new FormatCodes();
+		int length = str.length();
+		int spanStart = 0;
+		int codes = LegacyStyles.NONE;
 
-		for (int i = 0; i < chars.length; i++) {
-			if (chars[i] == '§') { // Section sign
-				if (!sb.isEmpty()) {
+		for (int i = 0; i < length; i++) {
+			if (str.charAt(i) == '§') { // Section sign
+				if (spanStart < i) {
 					// Clear backlog
-					text.append(Component.literal(sb.toString()).withStyle(codes.createStyle()));
-					sb.setLength(0);
+					text.append(Component.literal(str.substring(spanStart, i))
+							.withStyle(LegacyStyles.get(codes)));
 				}
-				if (i < chars.length - 1) { // Next char exists
-					char next = chars[++i]; // Skip to next char
-					switch (next) { // Process code
-						case 'r' -> codes.clear();
-						case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd',
-							 'e', 'f' -> {
-							codes.clear(); // Color codes reset format
-							codes.color = ChatFormatting.getByCode(next);
-						}
-						case 'k' -> codes.obfuscated = true;
-						case 'l' -> codes.bold = true;
-						case 'm' -> codes.strikethrough = true;
-						case 'n' -> codes.underline = true;
-						case 'o' -> codes.italic = true;
-						default -> {
-						} // Ignore invalid codes
-					}
+				if (i < length - 1) { // Next char exists
+					codes = LegacyStyles.apply(codes, str.charAt(++i)); // Skip to next char
 				}
-			} else { // Not section sign
-				sb.append(chars[i]);
+				spanStart = i + 1;
 			}
 		}
-		if (!sb.isEmpty()) {
-			text.append(Component.literal(sb.toString()).withStyle(codes.createStyle()));
+		if (spanStart < length) {
+			text.append(Component.literal(str.substring(spanStart)).withStyle(LegacyStyles.get(codes)));
 		}
 
 		// Re-attach siblings
@@ -318,38 +416,61 @@ public class FormatUtil {
 		return text;
 	}
 
-	private static class FormatCodes {
-
-		@Nullable ChatFormatting color = null;
-		boolean bold = false;
-		boolean italic = false;
-		boolean underline = false;
-		boolean strikethrough = false;
-		boolean obfuscated = false;
-
-		Style createStyle() {
-			return StyleAccessor.chatcolors$new(
-					color == null ? null : TextColor.fromLegacyFormat(color),
-					null,
-					bold ? true : null,
-					italic ? true : null,
-					underline ? true : null,
-					strikethrough ? true : null,
-					obfuscated ? true : null,
-					null,
-					null,
-					null,
-					null
-			);
+	/**
+	 * Every combination of a legacy color and format flags, precomputed as a {@link Style}.
+	 * <p>
+	 * The lexer state is a single int: the low 5 bits are the format flags, the rest is the
+	 * color code plus one, with 0 meaning no color.
+	 */
+	private static final class LegacyStyles {
+
+		static final int NONE = 0;
+
+		private static final int BOLD = 1;
+		private static final int ITALIC = 1 << 1;
+		private static final int UNDERLINE = 1 << 2;
+		private static final int STRIKETHROUGH = 1 << 3;
+		private static final int OBFUSCATED = 1 << 4;
+		private static final int FLAG_BITS = 5;
+		private static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+
+		private static final Style[] STYLES = new Style[17 << FLAG_BITS];
+
+		static {
+			for (int color = 0; color <= 16; color++) {
+				Style base = color == 0 ? Style.EMPTY : Style.EMPTY.withColor(
+						TextColor.fromLegacyFormat(ChatFormatting.getByCode(Character.forDigit(color - 1, 16))));
+				for (int flags = 0; flags <= FLAG_MASK; flags++) {
+					STYLES[(color << FLAG_BITS) | flags] = base
+							.withBold((flags & BOLD) != 0 ? true : null)
+							.withItalic((flags & ITALIC) != 0 ? true : null)
+							.withUnderlined((flags & UNDERLINE) != 0 ? true : null)
+							.withStrikethrough((flags & STRIKETHROUGH) != 0 ? true : null)
+							.withObfuscated((flags & OBFUSCATED) != 0 ? true : null);
+				}
+			}
+		}
+
+		static Style get(int codes) {
+			return STYLES[codes];
 		}
 
-		void clear() {
-			color = null;
-			bold = false;
-			italic = false;
-			underline = false;
-			strikethrough = false;
-			obfuscated = false;
+		/**
+		 * @return the lexer state after the format code {@code code}
+		 */
+		static int apply(int codes, char code) {
+			return switch (code) { // Process code
+				case 'r' -> NONE;
+				// Color codes reset format
+				case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd',
+					 'e', 'f' -> (Character.digit(code, 16) + 1) << FLAG_BITS;
+				case 'k' -> codes | OBFUSCATED;
+				case 'l' -> codes | BOLD;
+				case 'm' -> codes | STRIKETHROUGH;
+				case 'n' -> codes | UNDERLINE;
+				case 'o' -> codes | ITALIC;
+				default -> codes; // Ignore invalid codes
+			};
 		}
 	}
 }